@@ -0,0 +1,132 @@
+import com.game.service.MatchmakingIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Matchmaking simulation for {@link MatchmakingIndex} under a large waiting queue.
+ * <p>
+ * Fills the index with waiting players whose ratings follow N(1500, 300) and whose wait started
+ * at random points over the last minute, then pairs a stream of joiners drawn from the same
+ * distribution. Joiners without a match start waiting themselves, as in the server. Reports the
+ * claim latency, the match rate and the rating gap of the pairs, next to the rating gap of the
+ * previous pairing, which ignored ratings and so paired players at random. Match quality is
+ * asserted by MatchmakingIndexTest, this program adds the timings. Runs against the compiled
+ * classes:
+ *
+ * <pre>
+ * mvn compile
+ * java -cp target/classes bench/MatchmakingSimulation.java [--waiting 50000] [--joiners 200000]
+ * </pre>
+ */
+public class MatchmakingSimulation {
+
+    private static final double MEAN_RATING = 1500;
+    private static final double RATING_DEVIATION = 300;
+    private static final long WAIT_SPREAD_MS = 60_000;
+    private static final long JOIN_INTERVAL_MS = 1;
+
+    public static void main(String[] args) {
+        int waitingPlayers = 50_000;
+        int joiners = 200_000;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--waiting":
+                    waitingPlayers = Integer.parseInt(args[++i]);
+                    break;
+                case "--joiners":
+                    joiners = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+
+        // Warm up the JIT on a separate index so the measured run is steady-state
+        simulate(waitingPlayers, joiners, 1L, false);
+        simulate(waitingPlayers, joiners, 42L, true);
+    }
+
+    private static void simulate(int waitingPlayers, int joiners, long seed, boolean report) {
+        Random random = new Random(seed);
+        AtomicLong clock = new AtomicLong(WAIT_SPREAD_MS);
+        MatchmakingIndex index = new MatchmakingIndex(MatchmakingIndex.DEFAULT_BUCKET_WIDTH,
+                MatchmakingIndex.DEFAULT_BASE_WINDOW, MatchmakingIndex.DEFAULT_WIDEN_PER_SECOND, clock::get);
+        // Ratings of the waiting players, mirroring the index
+        Map<Long, Double> ratings = new HashMap<>();
+
+        // Seed the queue in arrival order, spread over the last minute
+        long[] arrivals = new long[waitingPlayers];
+        for (int i = 0; i < waitingPlayers; i++) {
+            arrivals[i] = (long) (random.nextDouble() * WAIT_SPREAD_MS);
+        }
+        Arrays.sort(arrivals);
+        long nextRoom = 1;
+        for (long arrival : arrivals) {
+            double rating = nextRating(random);
+            clock.set(arrival);
+            index.add(nextRoom, rating);
+            ratings.put(nextRoom++, rating);
+        }
+        clock.set(WAIT_SPREAD_MS);
+
+        long[] latencies = new long[joiners];
+        List<Double> gaps = new ArrayList<>();
+        List<Double> unratedGaps = new ArrayList<>();
+        for (int i = 0; i < joiners; i++) {
+            double rating = nextRating(random);
+            // Previous behaviour: join any room with one player, whatever its rating
+            unratedGaps.add(Math.abs(nextRating(random) - rating));
+            long start = System.nanoTime();
+            long room = index.claim(rating);
+            latencies[i] = System.nanoTime() - start;
+            if (room != MatchmakingIndex.NO_MATCH) {
+                gaps.add(Math.abs(ratings.remove(room) - rating));
+            } else {
+                index.add(nextRoom, rating);
+                ratings.put(nextRoom++, rating);
+            }
+            clock.addAndGet(JOIN_INTERVAL_MS);
+        }
+
+        if (!report) {
+            return;
+        }
+        Arrays.sort(latencies);
+        System.out.printf("Waiting players: %d, joiners: %d, still waiting: %d%n",
+                waitingPlayers, joiners, index.size());
+        System.out.printf("Claim latency: avg %d ns, p50 %d ns, p99 %d ns, max %d ns%n",
+                (long) Arrays.stream(latencies).average().orElse(0),
+                percentile(latencies, 0.50), percentile(latencies, 0.99), latencies[latencies.length - 1]);
+        System.out.printf("Matched: %.1f%%%n", 100.0 * gaps.size() / joiners);
+        System.out.printf("Rating gap, rated pairing: mean %.1f, p95 %.1f, max %.1f%n",
+                mean(gaps), percentile(gaps, 0.95), percentile(gaps, 1.0));
+        System.out.printf("Rating gap, unrated pairing: mean %.1f, p95 %.1f, max %.1f%n",
+                mean(unratedGaps), percentile(unratedGaps, 0.95), percentile(unratedGaps, 1.0));
+    }
+
+    private static double nextRating(Random random) {
+        return MEAN_RATING + random.nextGaussian() * RATING_DEVIATION;
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) (fraction * sorted.length))];
+    }
+
+    private static double percentile(List<Double> values, double fraction) {
+        if (values.isEmpty()) {
+            return 0;
+        }
+        double[] sorted = values.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+        return sorted[Math.min(sorted.length - 1, (int) (fraction * sorted.length))];
+    }
+
+    private static double mean(List<Double> values) {
+        return values.stream().mapToDouble(Double::doubleValue).average().orElse(0);
+    }
+}
@@ -0,0 +1,162 @@
+import java.io.File;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repeatable cold-start benchmark for the backend.
+ * <p>
+ * Launches the server command N times and measures, from process start, the time until
+ * {@code /health} first answers and the time until the first STOMP CONNECT on {@code /ws}
+ * is acknowledged. Runs as a single-file program, no build required:
+ *
+ * <pre>
+ * java bench/StartupBenchmark.java [--runs 5] [--port 8080] [-- command...]
+ * </pre>
+ *
+ * The default command is {@code java -jar target/*.jar}; pass e.g.
+ * {@code -- java -XX:SharedArchiveFile=app.jsa -cp app.jar:lib/* com.game.TicTacTwoApplication}
+ * to benchmark the fast-startup layout.
+ */
+public class StartupBenchmark {
+
+    private static final long TIMEOUT_MS = 120_000;
+    private static final long POLL_INTERVAL_MS = 10;
+
+    public static void main(String[] args) throws Exception {
+        int runs = 5;
+        int port = 8080;
+        List<String> command = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--runs")) {
+                runs = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--port")) {
+                port = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--")) {
+                command.addAll(Arrays.asList(args).subList(i + 1, args.length));
+                break;
+            }
+        }
+        if (command.isEmpty()) {
+            command.addAll(List.of("java", "-jar", findJar()));
+        }
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        List<Long> healthTimes = new ArrayList<>();
+        List<Long> connectTimes = new ArrayList<>();
+        for (int run = 1; run <= runs; run++) {
+            ProcessBuilder builder = new ProcessBuilder(command)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD);
+            // PORT feeds the default server.port, SERVER_PORT overrides profiles that pin it (prod)
+            builder.environment().put("PORT", String.valueOf(port));
+            builder.environment().put("SERVER_PORT", String.valueOf(port));
+            long start = System.nanoTime();
+            Process process = builder.start();
+            try {
+                long health = awaitHealth(client, port, start, process);
+                long connect = awaitStompConnect(client, port, start);
+                healthTimes.add(health);
+                connectTimes.add(connect);
+                System.out.printf("run %d: /health %d ms, STOMP CONNECT %d ms%n", run, health, connect);
+            } finally {
+                process.descendants().forEach(ProcessHandle::destroy);
+                process.destroy();
+                if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                    process.destroyForcibly().waitFor();
+                }
+            }
+        }
+        report("/health", healthTimes);
+        report("STOMP CONNECT", connectTimes);
+    }
+
+    private static String findJar() {
+        File[] jars = new File("target").listFiles((dir, name) -> name.endsWith(".jar"));
+        if (jars == null || jars.length == 0) {
+            throw new IllegalStateException("No jar found in target/, run 'mvn package' first or pass a command after --");
+        }
+        return jars[0].getPath();
+    }
+
+    private static long awaitHealth(HttpClient client, int port, long start, Process process) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/health"))
+                .timeout(Duration.ofSeconds(1))
+                .build();
+        while (elapsedMs(start) < TIMEOUT_MS) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Server exited with code " + process.exitValue());
+            }
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return elapsedMs(start);
+                }
+            } catch (ConnectException e) {
+                // Not listening yet
+            }
+            Thread.sleep(POLL_INTERVAL_MS);
+        }
+        throw new IllegalStateException("Timed out waiting for /health");
+    }
+
+    private static long awaitStompConnect(HttpClient client, int port, long start) throws Exception {
+        CompletableFuture<Long> connected = new CompletableFuture<>();
+        // SockJS exposes a raw WebSocket transport under <endpoint>/websocket
+        WebSocket socket = client.newWebSocketBuilder()
+                .buildAsync(URI.create("ws://localhost:" + port + "/ws/websocket"), new WebSocket.Listener() {
+                    private final StringBuilder frame = new StringBuilder();
+
+                    @Override
+                    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+                        frame.append(data);
+                        if (last) {
+                            if (frame.toString().startsWith("CONNECTED")) {
+                                connected.complete(elapsedMs(start));
+                            } else {
+                                connected.completeExceptionally(new IllegalStateException("Unexpected frame: " + frame));
+                            }
+                            frame.setLength(0);
+                        }
+                        webSocket.request(1);
+                        return null;
+                    }
+
+                    @Override
+                    public void onError(WebSocket webSocket, Throwable error) {
+                        connected.completeExceptionally(error);
+                    }
+                })
+                .get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        try {
+            socket.sendText("CONNECT\naccept-version:1.2\nhost:localhost\nusername:startup_benchmark\n\n\u0000", true);
+            return connected.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } finally {
+            socket.abort();
+        }
+    }
+
+    private static long elapsedMs(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private static void report(String label, List<Long> times) {
+        if (times.isEmpty()) {
+            return;
+        }
+        List<Long> sorted = new ArrayList<>(times);
+        Collections.sort(sorted);
+        System.out.printf("%s: min %d ms, median %d ms, max %d ms over %d runs%n",
+                label, sorted.get(0), sorted.get(sorted.size() / 2), sorted.get(sorted.size() - 1), sorted.size());
+    }
+}
@@ -4,6 +4,7 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
 import org.springframework.boot.autoconfigure.thymeleaf.ThymeleafAutoConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
 
 @SpringBootApplication(exclude = {
         DataSourceAutoConfiguration.class,
@@ -11,6 +12,10 @@ import org.springframework.boot.autoconfigure.thymeleaf.ThymeleafAutoConfigurati
 })
 public class TicTacTwoApplication {
     public static void main(String[] args) {
-        SpringApplication.run(TicTacTwoApplication.class, args);
+        ConfigurableApplicationContext context = SpringApplication.run(TicTacTwoApplication.class, args);
+        // Training run used to record the CDS archive during the Docker build: boot once, then exit
+        if (Boolean.getBoolean("tictactwo.cds.training")) {
+            System.exit(SpringApplication.exit(context));
+        }
     }
-}
\ No newline at end of file
+}
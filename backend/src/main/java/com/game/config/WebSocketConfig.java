@@ -1,5 +1,7 @@
 package com.game.config;
 
+import com.game.jfr.BroadcastEvent;
+
 import java.security.Principal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,6 +36,16 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         // Set the prefix for messages that are bound for methods annotated with @MessageMapping
         config.setApplicationDestinationPrefixes("/app"); // Prefix for endpoints
         config.setUserDestinationPrefix("/user"); // Prefix for user-specific destinations
+        // Report serialized payload sizes of server-sent messages to the broadcast JFR event in progress
+        config.configureBrokerChannel().interceptors(new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+                if (message.getPayload() instanceof byte[] payload) {
+                    BroadcastEvent.addPayload(payload.length);
+                }
+                return message;
+            }
+        });
     }
 
     // Register STOMP endpoints
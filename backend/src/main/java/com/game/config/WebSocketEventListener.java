@@ -1,6 +1,8 @@
 package com.game.config;
 
+import com.game.jfr.PlayerDisconnectedEvent;
 import com.game.service.GameService;
+import com.game.service.SpectatorBroadcaster;
 
 import java.security.Principal;
 import java.util.Map;
@@ -13,6 +15,8 @@ import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
 
 @Component
 public class WebSocketEventListener {
@@ -25,9 +29,26 @@ public class WebSocketEventListener {
     @Autowired
     private SimpMessagingTemplate messagingTemplate;
 
+    @Autowired
+    private SpectatorBroadcaster spectatorBroadcaster;
+
+    @EventListener
+    public void handleWebSocketSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
+        spectatorBroadcaster.subscribed(headerAccessor.getDestination(),
+                headerAccessor.getSessionId(), headerAccessor.getSubscriptionId());
+    }
+
+    @EventListener
+    public void handleWebSocketUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
+        spectatorBroadcaster.unsubscribed(headerAccessor.getSessionId(), headerAccessor.getSubscriptionId());
+    }
+
     @EventListener
     public void handleWebSocketDisconnect(SessionDisconnectEvent event) {
         StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
+        spectatorBroadcaster.sessionClosed(event.getSessionId());
         String username = Optional.ofNullable(headerAccessor.getUser())
                 .map(Principal::getName)
                 .orElse(null);
@@ -38,6 +59,8 @@ public class WebSocketEventListener {
             return;
         }
         
+        PlayerDisconnectedEvent jfrEvent = new PlayerDisconnectedEvent();
+        jfrEvent.start();
         String roomId = gameService.getRoomOfPlayer(username);
 
         if (roomId != null && username != null) {
@@ -45,7 +68,16 @@ public class WebSocketEventListener {
                 logger.info("Player {} disconnected from room {}", username, roomId);
                 messagingTemplate.convertAndSend("/topic/room/" + roomId,
                         Map.of("type", "player_disconnected", "username", username, "roomId", roomId));
+                spectatorBroadcaster.roomChanged(roomId);
             }
         }
+
+        String spectatedRoomId = gameService.getRoomOfSpectator(username);
+        if (spectatedRoomId != null && gameService.removeSpectator(spectatedRoomId, username)) {
+            logger.info("Spectator {} disconnected from room {}", username, spectatedRoomId);
+            // Let the other spectators see the new count
+            spectatorBroadcaster.roomChanged(spectatedRoomId);
+        }
+        jfrEvent.finish(roomId);
     }
 }
@@ -1,7 +1,12 @@
 package com.game.controller;
 
+import com.game.jfr.BroadcastEvent;
+import com.game.model.RoomStatus;
 import com.game.service.GameService;
 import com.game.service.GameService.JoinRoomResponse;
+import com.game.service.LobbyDirectory;
+import com.game.service.LobbyDirectory.LobbyPage;
+import com.game.service.SpectatorBroadcaster;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,6 +18,7 @@ import org.springframework.messaging.simp.user.SimpUserRegistry;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Controller;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.security.Principal;
@@ -21,6 +27,7 @@ import java.util.stream.Collectors;
 
 @Configuration
 @EnableScheduling
+@Lazy(false) // Scheduled broadcasts must start with the app, even under lazy initialization
 @Controller
 public class GameController {
 
@@ -35,6 +42,12 @@ public class GameController {
     @Autowired
     private SimpUserRegistry simpUserRegistry;
 
+    @Autowired
+    private SpectatorBroadcaster spectatorBroadcaster;
+
+    @Autowired
+    private LobbyDirectory lobbyDirectory;
+
     @Value("${spring.profiles.active}")
     private String activeProfile;
 
@@ -43,15 +56,15 @@ public class GameController {
         String requestedRoomId = (String) payload.get("roomId");
         if (requestedRoomId != null && !requestedRoomId.isEmpty()) {
             // Check if the requested room ID is already taken
-            if (gameService.getRooms().contains(requestedRoomId)) {
+            if (gameService.roomExists(requestedRoomId)) {
                 logger.info("Room with ID {} already exists still creating new room, no error handling for now", requestedRoomId);
                 // handle it later
             }
-            // Create a room with the requested ID
-            gameService.createRoom(requestedRoomId);
-            logger.info("Room created with ID: {}", requestedRoomId);
+            // Create a room reachable through the requested ID
+            String roomId = gameService.createRoom(requestedRoomId);
+            logger.info("Room created with ID: {} for requested ID: {}", roomId, requestedRoomId);
             messagingTemplate.convertAndSend("/topic/public",
-                    Map.of("type", "room_created", "roomId", requestedRoomId));
+                    Map.of("type", "room_created", "roomId", roomId));
             return;
         }
         // Create a room with a random ID
@@ -97,51 +110,99 @@ public class GameController {
         // Notify other players in the room
         messagingTemplate.convertAndSend("/topic/room/" + assignedRoomId,
                 Map.of("type", "player_joined", "roomId", assignedRoomId, "isRoomFull", isRoomFull));
+        spectatorBroadcaster.roomChanged(assignedRoomId);
+    }
+
+    /**
+     * Handles requests to watch a room without taking a seat. The spectator gets the current room
+     * state on /user/queue/spectate, then follows /topic/spectate/{roomId} for the room ID in it,
+     * fed by the coalescing spectator broadcaster.
+     *
+     * @param payload the spectate request payload containing roomId (or the requested room alias)
+     */
+    @MessageMapping("/spectateRoom")
+    public void spectateRoom(@Payload Map<String, Object> payload, Principal principal) {
+        String requestedRoomId = (String) payload.get("roomId");
+        String username = principal.getName();
+        String roomId = gameService.addSpectator(requestedRoomId, username);
+        Map<String, Object> view = roomId != null ? gameService.getSpectatorView(roomId) : null;
+        if (view == null) {
+            messagingTemplate.convertAndSendToUser(username, "/queue/spectate",
+                    Map.of("type", "spectate_failed", "roomId", String.valueOf(requestedRoomId)));
+            return;
+        }
+        logger.info("Player {} spectating room with ID: {}", username, roomId);
+        messagingTemplate.convertAndSendToUser(username, "/queue/spectate", view);
+        // Let the other spectators see the new count
+        spectatorBroadcaster.roomChanged(roomId);
     }
 
     /**
-     * Handles game state updates from clients.
+     * Handles game state updates from clients. Only moves and new games from the room's players
+     * are broadcast, anything else is dropped.
      *
      * @param payload the game state payload containing roomId and gameState
      */
     @MessageMapping("/updateGameState")
-    public void updateGameState(@Payload Map<String, Object> payload) {
+    public void updateGameState(@Payload Map<String, Object> payload, Principal principal) {
         String roomId = (String) payload.get("roomId");
         @SuppressWarnings("unchecked")
         Map<String, Object> gameState = (Map<String, Object>) payload.get("gameState");
-        gameService.updateGameState(roomId, gameState);
-        logger.info("Game state updated for room: {}", roomId);
+        // Clients may address the room by its alias, broadcast on the room ID
+        String updatedRoomId = gameService.updateGameState(roomId, gameState,
+                principal != null ? principal.getName() : null);
+        if (updatedRoomId == null) {
+            return;
+        }
+        logger.info("Game state updated for room: {}", updatedRoomId);
         // Broadcast the updated game state to all players in the room
-        messagingTemplate.convertAndSend("/topic/room/" + roomId,
+        messagingTemplate.convertAndSend("/topic/room/" + updatedRoomId,
                 Map.of("type", "game_state_updated", "gameState", gameState));
+        spectatorBroadcaster.roomChanged(updatedRoomId);
     }
 
-    /*
-     * Broadcast available rooms to all players, at every 2 seconds
+    /**
+     * Handles lobby listing requests. Changes after the first page are pushed on /topic/lobby.
+     *
+     * @param payload the lobby request payload containing status, cursor and limit
      */
-    // @Scheduled(fixedRate = 2000)
-    // public void broadcastRooms() {
-    //     List<String> rooms = gameService.getRooms();
-    //     logger.info("Broadcasting available rooms : {}", rooms.size());
-    //     messagingTemplate.convertAndSend("/topic/public",
-    //             Map.of("type", "rooms", "rooms", rooms));
-    // }
+    @MessageMapping("/lobby")
+    public void listLobby(@Payload Map<String, Object> payload, Principal principal) {
+        String cursor = (String) payload.get("cursor");
+        Object limit = payload.get("limit");
+        int pageSize = limit instanceof Number ? ((Number) limit).intValue() : LobbyDirectory.DEFAULT_PAGE_SIZE;
+        try {
+            RoomStatus status = RoomStatus.parse((String) payload.get("status"));
+            LobbyPage page = lobbyDirectory.getPage(status, cursor, pageSize);
+            messagingTemplate.convertAndSendToUser(principal.getName(), "/queue/lobby",
+                    Map.of("type", "lobby_page", "page", page));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected lobby request from {}: {}", principal.getName(), e.getMessage());
+            messagingTemplate.convertAndSendToUser(principal.getName(), "/queue/lobby",
+                    Map.of("type", "lobby_error", "message", e.getMessage()));
+        }
+    }
 
     /*
      * Broadcast active players to all players, at every 2 seconds
      */
     @Scheduled(fixedRate = 2000)
     public void broadcastActivePlayers() {
-        int activePlayers = this.simpUserRegistry
-                .getUsers()
-                .stream()
-                .map(SimpUser::getName)
-                .filter(username -> username != null && !username.startsWith("status_monitor_")) // Exclude status monitors
-                .collect(Collectors.toList()).size();
-        if (activeProfile.equals("local"))
-            logger.info("Broadcasting active players : {}", activePlayers);
-        messagingTemplate.convertAndSend("/topic/public",
-                Map.of("type", "active_players", "activePlayers", activePlayers));
+        BroadcastEvent event = BroadcastEvent.start("activePlayers");
+        try {
+            int activePlayers = this.simpUserRegistry
+                    .getUsers()
+                    .stream()
+                    .map(SimpUser::getName)
+                    .filter(username -> username != null && !username.startsWith("status_monitor_")) // Exclude status monitors
+                    .collect(Collectors.toList()).size();
+            if (activeProfile.equals("local"))
+                logger.info("Broadcasting active players : {}", activePlayers);
+            messagingTemplate.convertAndSend("/topic/public",
+                    Map.of("type", "active_players", "activePlayers", activePlayers));
+        } finally {
+            event.finish(0);
+        }
     }
 
     /*
@@ -149,10 +210,17 @@ public class GameController {
      */
     @Scheduled(fixedRate = 750)
     public void broadcastGameState() {
-        Map<String, Map<String, Object>> gameStateInfo = gameService.getAllRoomsWithPlayers();
-        if (activeProfile.equals("local"))
-            logger.info("Broadcasting game state info for {} rooms", gameStateInfo.size());
-        messagingTemplate.convertAndSend("/topic/status",
-                Map.of("type", "game_state_update", "rooms", gameStateInfo));
+        BroadcastEvent event = BroadcastEvent.start("gameState");
+        int rooms = 0;
+        try {
+            Map<String, Map<String, Object>> gameStateInfo = gameService.getAllRoomsWithPlayers();
+            rooms = gameStateInfo.size();
+            if (activeProfile.equals("local"))
+                logger.info("Broadcasting game state info for {} rooms", rooms);
+            messagingTemplate.convertAndSend("/topic/status",
+                    Map.of("type", "game_state_update", "rooms", gameStateInfo));
+        } finally {
+            event.finish(rooms);
+        }
     }
 }
\ No newline at end of file
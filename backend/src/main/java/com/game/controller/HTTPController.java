@@ -1,6 +1,15 @@
 package com.game.controller;
 
+import com.game.model.RoomStatus;
+import com.game.service.LobbyDirectory;
+import com.game.service.LobbyDirectory.LobbyPage;
+import com.game.service.RatingService;
+import com.game.service.RatingService.PlayerRating;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 
@@ -8,8 +17,44 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 public class HTTPController {
 
+    @Autowired
+    private LobbyDirectory lobbyDirectory;
+
+    @Autowired
+    private RatingService ratingService;
+
     @GetMapping("/health")
     public String healthCheck() {
         return "OK";
     }
-}
\ No newline at end of file
+
+    /**
+     * Lists lobby rooms with the given status, oldest first, one page at a time.
+     *
+     * @param status the room status, "waiting" or "active"
+     * @param cursor the nextCursor of the previous page, omitted for the first page
+     * @param limit  the page size
+     * @return the page, or 400 if the status is unknown or the cursor is malformed
+     */
+    @GetMapping("/api/lobby")
+    public ResponseEntity<LobbyPage> lobby(@RequestParam(defaultValue = "waiting") String status,
+                                           @RequestParam(required = false) String cursor,
+                                           @RequestParam(defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(lobbyDirectory.getPage(RoomStatus.parse(status), cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Retrieves the rating record of a player.
+     *
+     * @param username the username of the player
+     * @return the rating record, with the initial rating for players without games
+     */
+    @GetMapping("/api/ratings/{username}")
+    public PlayerRating rating(@PathVariable String username) {
+        return ratingService.getPlayerRating(username);
+    }
+}
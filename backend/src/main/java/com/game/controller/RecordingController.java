@@ -0,0 +1,107 @@
+package com.game.controller;
+
+import com.game.service.FlightRecorderService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+
+/**
+ * On-demand Flight Recorder recordings. Only registered when jfr.endpoint.enabled=true. Requests
+ * must carry the X-Recording-Token header if jfr.endpoint.token is set, and otherwise must come
+ * from the loopback interface.
+ */
+@RestController
+@RequestMapping("/api/recordings")
+@ConditionalOnProperty(name = "jfr.endpoint.enabled", havingValue = "true")
+public class RecordingController {
+
+    private static final String TOKEN_HEADER = "X-Recording-Token";
+
+    @Autowired
+    private FlightRecorderService flightRecorderService;
+
+    @Value("${jfr.endpoint.token:}")
+    private String token;
+
+    @PostMapping("/start")
+    public ResponseEntity<String> start(HttpServletRequest request,
+                                        @RequestHeader(name = TOKEN_HEADER, required = false) String requestToken) throws IOException {
+        if (!isAuthorized(request, requestToken)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (!flightRecorderService.start()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Recording already running");
+        }
+        return ResponseEntity.ok("Recording started");
+    }
+
+    @PostMapping("/stop")
+    public ResponseEntity<String> stop(HttpServletRequest request,
+                                       @RequestHeader(name = TOKEN_HEADER, required = false) String requestToken) {
+        if (!isAuthorized(request, requestToken)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (!flightRecorderService.stop()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("No recording running");
+        }
+        return ResponseEntity.ok("Recording stopped");
+    }
+
+    /**
+     * Downloads the current recording as a .jfr file.
+     */
+    @GetMapping("/dump")
+    public ResponseEntity<StreamingResponseBody> dump(HttpServletRequest request,
+                                                      @RequestHeader(name = TOKEN_HEADER, required = false) String requestToken) throws IOException {
+        if (!isAuthorized(request, requestToken)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        Path file = flightRecorderService.dump();
+        if (file == null) {
+            return ResponseEntity.notFound().build();
+        }
+        StreamingResponseBody body = outputStream -> {
+            try {
+                Files.copy(file, outputStream);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"tic-tac-two.jfr\"")
+                .contentLength(Files.size(file))
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(body);
+    }
+
+    private boolean isAuthorized(HttpServletRequest request, String requestToken) {
+        if (!token.isEmpty()) {
+            return requestToken != null && MessageDigest.isEqual(
+                    token.getBytes(StandardCharsets.UTF_8), requestToken.getBytes(StandardCharsets.UTF_8));
+        }
+        try {
+            return InetAddress.getByName(request.getRemoteAddr()).isLoopbackAddress();
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.game.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One run of a scheduled broadcast. The payload size is the serialized size of every message the
+ * run handed to the broker, reported through {@link #addPayload(int)} by the broker channel.
+ */
+@Name("com.game.Broadcast")
+@Label("Broadcast")
+@Category({"Tic-Tac-Two", "Messaging"})
+@StackTrace(false)
+public class BroadcastEvent extends Event {
+
+    // Broadcast run in progress on the current thread, only set while the event is enabled
+    private static final ThreadLocal<BroadcastEvent> current = new ThreadLocal<>();
+
+    @Label("Task")
+    private String task;
+
+    @Label("Rooms")
+    private int rooms;
+
+    @Label("Messages")
+    private int messages;
+
+    @Label("Payload Size")
+    @DataAmount
+    private long payloadSize;
+
+    /**
+     * Starts timing a broadcast run on the current thread.
+     *
+     * @param task the name of the scheduled task
+     * @return the event to finish when the run completes
+     */
+    public static BroadcastEvent start(String task) {
+        BroadcastEvent event = new BroadcastEvent();
+        if (event.isEnabled()) {
+            event.task = task;
+            current.set(event);
+        }
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Adds a serialized message to the broadcast run in progress on the current thread, if any.
+     *
+     * @param bytes the serialized payload size
+     */
+    public static void addPayload(int bytes) {
+        BroadcastEvent event = current.get();
+        if (event != null) {
+            event.messages++;
+            event.payloadSize += bytes;
+        }
+    }
+
+    /**
+     * Ends the run and commits the event if it is enabled and over its threshold.
+     *
+     * @param rooms the number of rooms covered by the run
+     */
+    public void finish(int rooms) {
+        current.remove();
+        end();
+        if (shouldCommit()) {
+            this.rooms = rooms;
+            commit();
+        }
+    }
+}
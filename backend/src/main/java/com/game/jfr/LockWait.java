@@ -0,0 +1,36 @@
+package com.game.jfr;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tracks, per thread, the time spent waiting for contended locks so that JFR events can report
+ * the lock wait of the operation they cover. Uncontended acquisitions cost a single tryLock.
+ */
+public final class LockWait {
+
+    private static final ThreadLocal<long[]> waited = ThreadLocal.withInitial(() -> new long[1]);
+
+    private LockWait() {
+    }
+
+    /**
+     * Acquires the lock, recording the wait if it was contended.
+     *
+     * @param lock the lock to acquire
+     */
+    public static void lock(ReentrantLock lock) {
+        if (lock.tryLock()) {
+            return;
+        }
+        long start = System.nanoTime();
+        lock.lock();
+        waited.get()[0] += System.nanoTime() - start;
+    }
+
+    /**
+     * @return the total lock wait of the current thread so far, in nanoseconds
+     */
+    public static long total() {
+        return waited.get()[0];
+    }
+}
@@ -0,0 +1,9 @@
+package com.game.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.game.RoomCreated")
+@Label("Room Created")
+public class RoomCreatedEvent extends RoomEvent {
+}
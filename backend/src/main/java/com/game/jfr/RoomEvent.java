@@ -0,0 +1,49 @@
+package com.game.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Base of the room lifecycle events. The event duration covers the whole operation and the
+ * lock wait is the part of it spent blocked on GameState locks.
+ */
+@Category({"Tic-Tac-Two", "Rooms"})
+@StackTrace(false)
+public abstract class RoomEvent extends Event {
+
+    @Label("Room ID")
+    protected String roomId;
+
+    @Label("Lock Wait")
+    @Timespan(Timespan.NANOSECONDS)
+    protected long lockWait;
+
+    private transient long lockWaitAtStart;
+
+    /**
+     * Starts timing the operation.
+     */
+    public void start() {
+        if (isEnabled()) {
+            lockWaitAtStart = LockWait.total();
+        }
+        begin();
+    }
+
+    /**
+     * Ends the operation and commits the event if it is enabled and over its threshold.
+     *
+     * @param roomId the ID of the room the operation applied to
+     */
+    public void finish(String roomId) {
+        end();
+        if (shouldCommit()) {
+            this.roomId = roomId;
+            this.lockWait = LockWait.total() - lockWaitAtStart;
+            commit();
+        }
+    }
+}
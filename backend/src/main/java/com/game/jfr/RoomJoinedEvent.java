@@ -0,0 +1,9 @@
+package com.game.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.game.RoomJoined")
+@Label("Room Joined")
+public class RoomJoinedEvent extends RoomEvent {
+}
@@ -1,19 +1,33 @@
 package com.game.model;
 
+import com.game.jfr.LockWait;
+
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.locks.ReentrantLock;
 
 public class GameState {
+    private static final int[][] LINES = {
+            {0, 1, 2}, {3, 4, 5}, {6, 7, 8}, // rows
+            {0, 3, 6}, {1, 4, 7}, {2, 5, 8}, // columns
+            {0, 4, 8}, {2, 4, 6}, // diagonals
+    };
+    // Marks on the board at most, each new mark beyond this removes the oldest one
+    private static final int MAX_MARKS = 6;
+
     private final List<String> squares;
     private final List<Integer> history;
     private boolean xIsNext;
     private int players;
     private final Map<String, String> playerSymbols; // Maps username to symbol
+    private final Set<String> spectators; // Usernames watching without a seat
+    private boolean resultClaimed; // Whether the winning line on the board was already reported
     private final ReentrantLock lock;
 
     public GameState() {
@@ -22,11 +36,12 @@ public class GameState {
         this.xIsNext = true; // X always starts
         this.players = 0;
         this.playerSymbols = new HashMap<>();
+        this.spectators = new HashSet<>();
         this.lock = new ReentrantLock();
     }
 
     public List<String> getSquares() {
-        lock.lock();
+        LockWait.lock(lock);
         try {
             return new ArrayList<>(squares);
         } finally {
@@ -35,7 +50,7 @@ public class GameState {
     }
 
     public void setSquares(List<String> squares) {
-        lock.lock();
+        LockWait.lock(lock);
         try {
             this.squares.clear();
             this.squares.addAll(squares);
@@ -45,7 +60,7 @@ public class GameState {
     }
 
     public List<Integer> getHistory() {
-        lock.lock();
+        LockWait.lock(lock);
         try {
             return new ArrayList<>(history);
         } finally {
@@ -54,7 +69,7 @@ public class GameState {
     }
 
     public void setHistory(List<Integer> history) {
-        lock.lock();
+        LockWait.lock(lock);
         try {
             this.history.clear();
             this.history.addAll(history);
@@ -64,7 +79,7 @@ public class GameState {
     }
 
     public boolean isXIsNext() {
-        lock.lock();
+        LockWait.lock(lock);
         try {
             return xIsNext;
         } finally {
@@ -73,7 +88,7 @@ public class GameState {
     }
 
     public void setXIsNext(boolean xIsNext) {
-        lock.lock();
+        LockWait.lock(lock);
         try {
             this.xIsNext = xIsNext;
         } finally {
@@ -82,7 +97,7 @@ public class GameState {
     }
 
     public int getPlayers() {
-        lock.lock();
+        LockWait.lock(lock);
         try {
             return players;
         } finally {
@@ -97,7 +112,7 @@ public class GameState {
      * @return the assigned symbol ('X' or 'O')
      */
     public String assignSymbol(String username) {
-        lock.lock();
+        LockWait.lock(lock);
         try {
             // Check if the player already has a symbol assigned
             if (playerSymbols.containsKey(username)) {
@@ -129,7 +144,7 @@ public class GameState {
      * @return the assigned symbol ('X' or 'O'), or null if not found
      */
     public String getPlayerSymbol(String username) {
-        lock.lock();
+        LockWait.lock(lock);
         try {
             return playerSymbols.get(username);
         } finally {
@@ -138,7 +153,7 @@ public class GameState {
     }
 
     public Map<String, String> getPlayerSymbols() {
-        lock.lock();
+        LockWait.lock(lock);
         try {
             return new HashMap<>(playerSymbols);
         } finally {
@@ -146,8 +161,50 @@ public class GameState {
         }
     }
 
+    /**
+     * Adds a spectator to the room. Spectators do not take a seat or a symbol.
+     *
+     * @param username the username of the spectator
+     * @return true if the spectator was added, false if already watching
+     */
+    public boolean addSpectator(String username) {
+        LockWait.lock(lock);
+        try {
+            return spectators.add(username);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean removeSpectator(String username) {
+        LockWait.lock(lock);
+        try {
+            return spectators.remove(username);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Set<String> getSpectators() {
+        LockWait.lock(lock);
+        try {
+            return new HashSet<>(spectators);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getSpectatorCount() {
+        LockWait.lock(lock);
+        try {
+            return spectators.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
     public boolean removePlayer(String username) {
-        lock.lock();
+        LockWait.lock(lock);
         try {
             if (Objects.nonNull(playerSymbols.remove(username))) {
                 // Reset the game state when a player is removed
@@ -161,12 +218,127 @@ public class GameState {
         }
     }
 
+    /**
+     * Ends a game in progress that a player walks out of, so that it cannot be won or rated a
+     * second time. A game is in progress when both players are seated, at least one move was
+     * played and nobody has won yet.
+     *
+     * @param username the username of the leaving player
+     * @return the username of the opponent, who wins by forfeit, or null if no game was in progress
+     */
+    public String forfeit(String username) {
+        LockWait.lock(lock);
+        try {
+            if (!playerSymbols.containsKey(username) || playerSymbols.size() < 2
+                    || history.isEmpty() || winnerOf(squares) != null) {
+                return null;
+            }
+            reset();
+            for (String player : playerSymbols.keySet()) {
+                if (!player.equals(username)) {
+                    return player;
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Applies a move or a new game sent by a seated player. A move must place the player's mark
+     * on an empty square on their turn, on a board that is not won yet, removing the oldest mark
+     * once the board holds MAX_MARKS marks. A new game must clear the board and is only accepted
+     * once the current game is won, so a player cannot wipe a game they are losing.
+     *
+     * @param username   the username of the sender
+     * @param newSquares the board after the update
+     * @param newHistory the move history after the update
+     * @param newXIsNext whether X moves next after the update
+     * @return true if the update was legal and applied, false otherwise
+     */
+    public boolean applyUpdate(String username, List<?> newSquares, List<?> newHistory, boolean newXIsNext) {
+        LockWait.lock(lock);
+        try {
+            String symbol = playerSymbols.get(username);
+            if (symbol == null) {
+                return false;
+            }
+            if (newHistory.isEmpty()) {
+                boolean cleared = newSquares.size() == squares.size() && newSquares.stream().allMatch(Objects::isNull);
+                return cleared && newXIsNext && winnerOf(squares) != null && reset();
+            }
+            if (!symbol.equals(xIsNext ? "X" : "O") || newXIsNext == xIsNext || winnerOf(squares) != null) {
+                return false;
+            }
+            Object move = newHistory.get(newHistory.size() - 1);
+            if (!(move instanceof Integer index) || index < 0 || index >= squares.size() || squares.get(index) != null) {
+                return false;
+            }
+            List<String> expectedSquares = new ArrayList<>(squares);
+            List<Integer> expectedHistory = new ArrayList<>(history);
+            expectedSquares.set(index, symbol);
+            expectedHistory.add(index);
+            if (expectedHistory.size() > MAX_MARKS) {
+                expectedSquares.set(expectedHistory.remove(0), null);
+            }
+            if (!expectedSquares.equals(newSquares) || !expectedHistory.equals(newHistory)) {
+                return false;
+            }
+            Collections.copy(squares, expectedSquares);
+            history.clear();
+            history.addAll(expectedHistory);
+            xIsNext = newXIsNext;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reports the winner of the current board, once per game. A board without a winning line
+     * (e.g. after a restart) re-arms the report for the next game.
+     *
+     * @return the winning symbol ('X' or 'O') if the board has a winning line that was not reported yet, null otherwise
+     */
+    public String claimResult() {
+        LockWait.lock(lock);
+        try {
+            String winner = winnerOf(squares);
+            if (winner == null) {
+                resultClaimed = false;
+                return null;
+            }
+            if (resultClaimed) {
+                return null;
+            }
+            resultClaimed = true;
+            return winner;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static String winnerOf(List<String> squares) {
+        if (squares.size() < 9) {
+            return null;
+        }
+        for (int[] line : LINES) {
+            String first = squares.get(line[0]);
+            if (first != null && first.equals(squares.get(line[1])) && first.equals(squares.get(line[2]))) {
+                return first;
+            }
+        }
+        return null;
+    }
+
     public boolean reset() {
-        lock.lock();
+        LockWait.lock(lock);
         try {
             Collections.fill(squares, null);
             history.clear();
             xIsNext = true;
+            resultClaimed = false;
             return true;
         } finally {
             lock.unlock();
@@ -0,0 +1,32 @@
+package com.game.model;
+
+/**
+ * Lobby status of a room, derived from its number of seated players.
+ */
+public enum RoomStatus {
+    WAITING, // Fewer than two players, open to join
+    ACTIVE; // Both seats taken
+
+    public static RoomStatus of(int players) {
+        return players < 2 ? WAITING : ACTIVE;
+    }
+
+    /**
+     * Parses a status name case-insensitively.
+     *
+     * @param name the status name, e.g. "waiting"
+     * @return the status, or WAITING if the name is null or empty
+     * @throws IllegalArgumentException if the name is not a known status
+     */
+    public static RoomStatus parse(String name) {
+        if (name == null || name.isEmpty()) {
+            return WAITING;
+        }
+        for (RoomStatus status : values()) {
+            if (status.name().equalsIgnoreCase(name)) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Invalid room status: " + name);
+    }
+}
@@ -0,0 +1,119 @@
+package com.game.service;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Starts, stops and dumps an in-process Flight Recorder recording on demand, using the JDK
+ * "default" settings overlaid with the bundled jfr/tictactwo.jfc profile.
+ */
+@Service
+@ConditionalOnProperty(name = "jfr.endpoint.enabled", havingValue = "true")
+public class FlightRecorderService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecorderService.class);
+
+    private static final String PROFILE = "/jfr/tictactwo.jfc";
+
+    @Value("${jfr.max-age-minutes:30}")
+    private long maxAgeMinutes;
+
+    @Value("${jfr.max-size-mb:64}")
+    private long maxSizeMb;
+
+    private Recording recording;
+
+    /**
+     * Starts a new recording, replacing any stopped one.
+     *
+     * @return true if a recording was started, false if one is already running
+     */
+    public synchronized boolean start() throws IOException {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            return false;
+        }
+        Recording started = new Recording(loadSettings());
+        started.setName("tic-tac-two");
+        started.setToDisk(true);
+        started.setMaxAge(Duration.ofMinutes(maxAgeMinutes));
+        started.setMaxSize(maxSizeMb * 1024 * 1024);
+        started.start();
+        if (recording != null) {
+            recording.close();
+        }
+        recording = started;
+        logger.info("Started JFR recording, max age {} min, max size {} MB", maxAgeMinutes, maxSizeMb);
+        return true;
+    }
+
+    /**
+     * Stops the running recording. Its data stays available for dumping.
+     *
+     * @return true if a recording was stopped, false if none was running
+     */
+    public synchronized boolean stop() {
+        if (recording == null || recording.getState() != RecordingState.RUNNING) {
+            return false;
+        }
+        recording.stop();
+        logger.info("Stopped JFR recording");
+        return true;
+    }
+
+    /**
+     * Dumps the current recording to a temporary file, which the caller must delete.
+     *
+     * @return the dump file, or null if nothing has been recorded
+     */
+    public synchronized Path dump() throws IOException {
+        if (recording == null) {
+            return null;
+        }
+        Path file = Files.createTempFile("tic-tac-two-", ".jfr");
+        recording.dump(file);
+        logger.info("Dumped JFR recording to {}", file);
+        return file;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    private Map<String, String> loadSettings() throws IOException {
+        try (InputStream profile = getClass().getResourceAsStream(PROFILE)) {
+            if (profile == null) {
+                throw new IOException("Missing JFR profile " + PROFILE);
+            }
+            Map<String, String> settings = new HashMap<>(Configuration.getConfiguration("default").getSettings());
+            try (Reader reader = new InputStreamReader(profile, StandardCharsets.UTF_8)) {
+                settings.putAll(Configuration.create(reader).getSettings());
+            }
+            return settings;
+        } catch (ParseException e) {
+            throw new IOException("Invalid JFR profile " + PROFILE, e);
+        }
+    }
+}
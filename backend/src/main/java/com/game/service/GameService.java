@@ -2,22 +2,48 @@ package com.game.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.game.jfr.RoomCreatedEvent;
+import com.game.jfr.RoomJoinedEvent;
+import com.game.jfr.RoomRemovedEvent;
+import com.game.jfr.RoomUpdatedEvent;
 import com.game.model.GameState;
+import com.game.util.ConcurrentLongHashMap;
+import com.game.util.RoomIds;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Rooms are keyed internally by 64-bit IDs (see {@link RoomIds}) and exposed to clients as
+ * base62 codes. Rooms created with a user-requested ID are also reachable through that alias.
+ * Quick-join pairs
+ * players by rating through a {@link MatchmakingIndex} of the rooms waiting for a second player.
+ */
 @Service
 public class GameService {
 
     private static final Logger logger = LoggerFactory.getLogger(GameService.class);
 
-    // Stores roomId to game state mapping
-    private final Map<String, GameState> rooms = new ConcurrentHashMap<>();
-    // Stores username to roomId mapping
-    private final Map<String, String> playerRoomMap = new ConcurrentHashMap<>();
+    @Autowired
+    private LobbyDirectory lobbyDirectory;
+
+    @Autowired
+    private RatingService ratingService;
+
+    // Stores room ID to game state mapping
+    private final ConcurrentLongHashMap<GameState> rooms = new ConcurrentLongHashMap<>();
+    // Stores user-requested room ID to room ID mapping, and the reverse for cleanup
+    private final Map<String, Long> roomAliases = new ConcurrentHashMap<>();
+    private final ConcurrentLongHashMap<String> aliasOfRoom = new ConcurrentLongHashMap<>();
+    // Stores username to room ID mapping
+    private final Map<String, Long> playerRoomMap = new ConcurrentHashMap<>();
+    // Stores spectator username to room ID mapping
+    private final Map<String, Long> spectatorRoomMap = new ConcurrentHashMap<>();
+    // Rooms with one player, indexed by that player's rating
+    private final MatchmakingIndex matchmaking = new MatchmakingIndex();
 
     /**
      * Creates a new game room with a unique ID.
@@ -25,97 +51,130 @@ public class GameService {
      * @return the generated room ID
      */
     public String createRoom() {
-        String roomId = UUID.randomUUID().toString();
-        rooms.put(roomId, new GameState());
+        RoomCreatedEvent event = new RoomCreatedEvent();
+        event.start();
+        long key = insertRoom();
+        String roomId = RoomIds.encode(key);
+        lobbyDirectory.register(roomId);
         logger.info("Created new room with ID: {}", roomId);
+        event.finish(roomId);
         return roomId;
     }
 
     /**
-     * Creates a new game room with the specified ID.
+     * Creates a new game room with the specified ID. The room gets a generated ID like any other,
+     * and the requested ID becomes an alias for it.
      *
      * @param roomId the desired room ID
-     * @return the room ID
+     * @return the generated room ID
      */
     public String createRoom(String roomId) {
-        if (rooms.containsKey(roomId)) {
+        RoomCreatedEvent event = new RoomCreatedEvent();
+        event.start();
+        long key = resolveRoomKey(roomId);
+        if (rooms.containsKey(key)) {
             logger.warn("Room ID {} already exists, resetting it's state", roomId);
+            rooms.put(key, new GameState());
+            matchmaking.remove(key);
+        } else {
+            key = insertRoom();
+            Long existing = roomAliases.putIfAbsent(roomId, key);
+            if (existing != null) {
+                // Lost a race against another request for the same ID, reset that room instead
+                rooms.remove(key);
+                key = existing;
+                rooms.put(key, new GameState());
+                matchmaking.remove(key);
+            } else {
+                aliasOfRoom.put(key, roomId);
+            }
         }
-        rooms.put(roomId, new GameState());
-        logger.info("Created new room on user request with ID: {}", roomId);
-        return roomId;
+        String generatedRoomId = RoomIds.encode(key);
+        lobbyDirectory.register(generatedRoomId);
+        logger.info("Created new room on user request with ID: {} ({})", generatedRoomId, roomId);
+        event.finish(generatedRoomId);
+        return generatedRoomId;
     }
 
     /**
      * Allows a user to join a game room. If the desired room ID is not provided or is empty,
-     * the method will attempt to find a room with only one player and join it. If no such room
-     * is found, a new room will be created and the user will join it. If a desired room ID is
+     * the method will attempt to find a room with only one player whose rating is close to the
+     * user's and join it. The accepted rating gap widens the longer a room has been waiting. If
+     * no such room is found, a new room will be created and the user will join it. If a desired room ID is
      * provided, the method will attempt to join that room if it has less than two players. If
      * the room is full or does not exist, a new room will be created and the user will join it.
      *
-     * @param desiredRoomId the ID of the room the user wants to join, or null/empty to join any available room
+     * @param desiredRoomId the ID or alias of the room the user wants to join, or null/empty to join any available room
      * @param username the username of the player joining the room
      * @return a JoinRoomResponse containing the room ID and the symbol assigned to the player
      */
     public JoinRoomResponse joinRoom(String desiredRoomId, String username) {
+        RoomJoinedEvent event = new RoomJoinedEvent();
+        event.start();
+        JoinRoomResponse response = findAndJoinRoom(desiredRoomId, username);
+        event.finish(response.getRoomId());
+        return response;
+    }
+
+    private JoinRoomResponse findAndJoinRoom(String desiredRoomId, String username) {
         if (desiredRoomId == null || desiredRoomId.isEmpty()) {
             logger.info("Joining any available room for user: {}", username);
-            // Try to find a room with only one player
-            for (Map.Entry<String, GameState> entry : rooms.entrySet()) {
-                GameState room = entry.getValue();
-                if (room.getPlayers() == 1) {
-                    String symbol = room.assignSymbol(username);
-                    playerRoomMap.put(username, entry.getKey());
-                    Map<String, String> playerSymbols = room.getPlayerSymbols();
-                    logger.info("Players in room {}: {}", entry.getKey(), playerSymbols);
-                    return new JoinRoomResponse(entry.getKey(), symbol);
+            // Try to find a room with only one player of a similar rating
+            double rating = ratingService.getRating(username);
+            long key;
+            while ((key = matchmaking.claim(rating)) != MatchmakingIndex.NO_MATCH) {
+                GameState room = rooms.get(key);
+                // Skip rooms that changed since they were indexed
+                if (room != null && room.getPlayers() == 1) {
+                    return seatPlayer(key, room, username);
                 }
             }
             // If no room with one player is found, create a new room
-            String newRoomId = createRoom();
-            GameState newRoom = rooms.get(newRoomId);
-            String symbol = newRoom.assignSymbol(username);
-            playerRoomMap.put(username, newRoomId);
-            Map<String, String> playerSymbols = newRoom.getPlayerSymbols();
-            logger.info("Players in room {}: {}", newRoomId, playerSymbols);
-            return new JoinRoomResponse(newRoomId, symbol);
+            long newKey = RoomIds.decode(createRoom());
+            return seatPlayer(newKey, rooms.get(newKey), username);
         }
-        GameState desiredRoom = rooms.get(desiredRoomId);
+        long desiredKey = resolveRoomKey(desiredRoomId);
+        GameState desiredRoom = rooms.get(desiredKey);
         if (desiredRoom != null && desiredRoom.getPlayers() < 2) {
             logger.info("Joining existing room on user request with ID: {}", desiredRoomId);
-            String symbol = desiredRoom.assignSymbol(username);
-            playerRoomMap.put(username, desiredRoomId);
-            Map<String, String> playerSymbols = desiredRoom.getPlayerSymbols();
-            logger.info("Players in room {}: {}", desiredRoomId, playerSymbols);
-            return new JoinRoomResponse(desiredRoomId, symbol);
+            return seatPlayer(desiredKey, desiredRoom, username);
         }
         // If no room with one player is found, create a new room
-        String newRoomId = createRoom();
-        GameState newRoom = rooms.get(newRoomId);
-        String symbol = newRoom.assignSymbol(username);
-        playerRoomMap.put(username, newRoomId);
-        Map<String, String> playerSymbols = newRoom.getPlayerSymbols();
-        logger.info("Players in room {}: {}", newRoomId, playerSymbols);
-        return new JoinRoomResponse(newRoomId, symbol);
+        long newKey = RoomIds.decode(createRoom());
+        return seatPlayer(newKey, rooms.get(newKey), username);
     }
 
     /**
-     * Updates the game state for a specific room.
+     * Updates the game state for a specific room with a move or a new game from one of its
+     * players. Updates from users without a seat in the room, and moves that do not follow from
+     * the current board, are rejected. A winning move updates both players' ratings.
      *
-     * @param roomId    the ID of the room
+     * @param roomId    the ID or alias of the room
      * @param gameState the new game state
+     * @param username  the username of the sender
+     * @return the ID of the updated room, or null if the room does not exist or the update was rejected
      */
-    @SuppressWarnings("unchecked")
-    public void updateGameState(String roomId, Map<String, Object> gameState) {
-        GameState state = rooms.get(roomId);
-        if (state != null) {
-            state.setSquares((List<String>) gameState.get("squares"));
-            state.setHistory((List<Integer>) gameState.get("history"));
-            state.setXIsNext((Boolean) gameState.get("xIsNext"));
+    public String updateGameState(String roomId, Map<String, Object> gameState, String username) {
+        RoomUpdatedEvent event = new RoomUpdatedEvent();
+        event.start();
+        long key = resolveRoomKey(roomId);
+        GameState state = rooms.get(key);
+        String updatedRoomId = null;
+        if (state == null) {
+            logger.error("Attempted to update non-existent room: {}", roomId);
+        } else if (gameState != null
+                && gameState.get("squares") instanceof List<?> squares
+                && gameState.get("history") instanceof List<?> history
+                && gameState.get("xIsNext") instanceof Boolean xIsNext
+                && state.applyUpdate(username, squares, history, xIsNext)) {
             logger.info("Updated game state for room: {}", roomId);
+            recordResult(state);
+            updatedRoomId = RoomIds.encode(key);
         } else {
-            logger.error("Attempted to update non-existent room: {}", roomId);
+            logger.warn("Rejected game state update from {} for room: {}", username, roomId);
         }
+        event.finish(roomId);
+        return updatedRoomId;
     }
 
     /**
@@ -125,7 +184,7 @@ public class GameService {
      * @return true if the room is full, false otherwise
      */
     public boolean isRoomFull(String roomId) {
-        GameState state = rooms.get(roomId);
+        GameState state = getRoom(roomId);
         return state != null && state.getPlayers() == 2;
     }
 
@@ -139,29 +198,44 @@ public class GameService {
         if (username == null) {
             return null;
         }
-        return playerRoomMap.get(username);
+        Long key = playerRoomMap.get(username);
+        return key != null ? RoomIds.encode(key) : null;
     }
 
     /**
      * Removes the disconnected player from the room and deletes the room if it becomes empty.
+     * Leaving a game in progress is rated as a loss against the opponent.
      *
      * @param roomId the ID of the room
      * @param username the username of the player to remove
      * @return true if the player was successfully removed, false otherwise
      */
     public boolean removePlayerFromRoom(String roomId, String username) {
-        GameState gameState = rooms.get(roomId);
+        long key = resolveRoomKey(roomId);
+        GameState gameState = rooms.get(key);
         if (gameState != null) {
+            // Leaving a game in progress counts as a loss, so a losing player cannot dodge the rating
+            String opponent = gameState.forfeit(username);
+            if (opponent != null) {
+                ratingService.recordResult(opponent, username);
+                logger.info("Player {} forfeited to {} in room {}", username, opponent, roomId);
+            }
             if (gameState.removePlayer(username)) {
-                playerRoomMap.remove(username);
+                playerRoomMap.remove(username, key);
                 logger.info("Removed player {} from room {}", username, roomId);
-                
+
                 // Check if room is now empty and remove it if so
                 if (gameState.getPlayers() == 0) {
-                    rooms.remove(roomId);
+                    removeRoom(key, gameState);
                     logger.info("Room {} removed as it has no more players", roomId);
+                } else {
+                    lobbyDirectory.update(RoomIds.encode(key), gameState);
+                    // The remaining player waits for a new opponent
+                    for (String remaining : gameState.getPlayerSymbols().keySet()) {
+                        matchmaking.add(key, ratingService.getRating(remaining));
+                    }
                 }
-                
+
                 return true;
             }
         }
@@ -169,19 +243,103 @@ public class GameService {
     }
 
     /**
-     * Retrieves the list of rooms with 0 or just 1 player.
+     * Adds a spectator to an existing room without taking a seat.
      *
-     * @return list of room IDs
+     * @param roomId   the ID or alias of the room to watch
+     * @param username the username of the spectator
+     * @return the ID of the room now being watched, or null if the room does not exist
      */
-    public List<String> getRooms() {
-        List<String> availableRooms = new ArrayList<>();
-        for (Map.Entry<String, GameState> entry : rooms.entrySet()) {
-            GameState room = entry.getValue();
-            if (room.getPlayers() < 2) {
-                availableRooms.add(entry.getKey());
-            }
+    public String addSpectator(String roomId, String username) {
+        long key = resolveRoomKey(roomId);
+        GameState gameState = rooms.get(key);
+        if (gameState == null) {
+            logger.warn("Spectator {} requested non-existent room: {}", username, roomId);
+            return null;
+        }
+        // A spectator watches one room at a time
+        Long previousKey = spectatorRoomMap.put(username, key);
+        if (previousKey != null && previousKey != key) {
+            removeSpectator(RoomIds.encode(previousKey), username);
+        }
+        gameState.addSpectator(username);
+        String watchedRoomId = RoomIds.encode(key);
+        logger.info("Spectator {} watching room {}", username, watchedRoomId);
+        return watchedRoomId;
+    }
+
+    /**
+     * Retrieves the room a spectator is watching.
+     *
+     * @param username the username of the spectator
+     * @return the room ID, or null if not spectating
+     */
+    public String getRoomOfSpectator(String username) {
+        if (username == null) {
+            return null;
+        }
+        Long key = spectatorRoomMap.get(username);
+        return key != null ? RoomIds.encode(key) : null;
+    }
+
+    /**
+     * Removes a spectator from the room they are watching.
+     *
+     * @param roomId   the ID of the room
+     * @param username the username of the spectator
+     * @return true if the spectator was removed, false otherwise
+     */
+    public boolean removeSpectator(String roomId, String username) {
+        long key = resolveRoomKey(roomId);
+        spectatorRoomMap.remove(username, key);
+        GameState gameState = rooms.get(key);
+        if (gameState != null && gameState.removeSpectator(username)) {
+            logger.info("Removed spectator {} from room {}", username, roomId);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Retrieves the number of spectators watching a room.
+     *
+     * @param roomId the ID of the room
+     * @return the spectator count, or 0 if the room does not exist
+     */
+    public int getSpectatorCount(String roomId) {
+        GameState state = getRoom(roomId);
+        return state != null ? state.getSpectatorCount() : 0;
+    }
+
+    /**
+     * Builds the state snapshot shown to spectators of a room.
+     *
+     * @param roomId the ID of the room
+     * @return the snapshot, or null if the room does not exist
+     */
+    public Map<String, Object> getSpectatorView(String roomId) {
+        GameState gameState = getRoom(roomId);
+        if (gameState == null) {
+            return null;
         }
-        return availableRooms;
+        Map<String, Object> view = new HashMap<>();
+        view.put("type", "room_state");
+        view.put("roomId", roomId);
+        view.put("squares", gameState.getSquares());
+        view.put("history", gameState.getHistory());
+        view.put("xIsNext", gameState.isXIsNext());
+        view.put("players", gameState.getPlayerSymbols());
+        view.put("spectators", gameState.getSpectatorCount());
+        return view;
+    }
+
+    /**
+     * Determines if a room exists.
+     *
+     * @param roomId the ID or alias of the room
+     * @return true if the room exists, false otherwise
+     */
+    public boolean roomExists(String roomId) {
+        return getRoom(roomId) != null;
     }
 
     /**
@@ -191,7 +349,7 @@ public class GameService {
      * @return list of squares
      */
     public List<String> getSquares(String roomId) {
-        GameState state = rooms.get(roomId);
+        GameState state = getRoom(roomId);
         return state != null ? state.getSquares() : Collections.emptyList();
     }
 
@@ -202,7 +360,7 @@ public class GameService {
      * @return list of move indices
      */
     public List<Integer> getHistory(String roomId) {
-        GameState state = rooms.get(roomId);
+        GameState state = getRoom(roomId);
         return state != null ? state.getHistory() : Collections.emptyList();
     }
 
@@ -213,7 +371,7 @@ public class GameService {
      * @return true if X's turn, false if O's turn
      */
     public boolean isXIsNext(String roomId) {
-        GameState state = rooms.get(roomId);
+        GameState state = getRoom(roomId);
         return state != null && state.isXIsNext();
     }
 
@@ -225,7 +383,7 @@ public class GameService {
      * @return the assigned symbol ('X' or 'O'), or null if not found
      */
     public String getPlayerSymbol(String roomId, String username) {
-        GameState state = rooms.get(roomId);
+        GameState state = getRoom(roomId);
         return state != null ? state.getPlayerSymbol(username) : null;
     }
 
@@ -236,23 +394,104 @@ public class GameService {
      */
     public Map<String, Map<String, Object>> getAllRoomsWithPlayers() {
         Map<String, Map<String, Object>> roomsInfo = new HashMap<>();
-        
-        for (Map.Entry<String, GameState> entry : rooms.entrySet()) {
-            String roomId = entry.getKey();
-            GameState gameState = entry.getValue();
-            
+
+        rooms.forEach((key, gameState) -> {
             Map<String, Object> roomInfo = new HashMap<>();
             roomInfo.put("players", gameState.getPlayerSymbols());
             roomInfo.put("playerCount", gameState.getPlayers());
+            roomInfo.put("spectatorCount", gameState.getSpectatorCount());
             roomInfo.put("isGameActive", gameState.getPlayers() == 2);
             roomInfo.put("currentTurn", gameState.isXIsNext() ? "X" : "O");
-            
-            roomsInfo.put(roomId, roomInfo);
-        }
-        
+
+            roomsInfo.put(RoomIds.encode(key), roomInfo);
+        });
+
         return roomsInfo;
     }
 
+    /**
+     * Resolves a room ID or alias to the internal room ID. Room IDs are decoded without hashing
+     * the string; the alias table is only consulted when no room has that ID.
+     *
+     * @param roomId the room ID or user-requested alias
+     * @return the internal room ID, or NO_ROOM if it is neither a known alias nor a valid room ID
+     */
+    private long resolveRoomKey(String roomId) {
+        if (roomId == null) {
+            return RoomIds.NO_ROOM;
+        }
+        long key = RoomIds.decode(roomId);
+        if (key != RoomIds.NO_ROOM && rooms.containsKey(key)) {
+            return key;
+        }
+        Long aliased = roomAliases.get(roomId);
+        return aliased != null ? aliased : key;
+    }
+
+    private GameState getRoom(String roomId) {
+        return rooms.get(resolveRoomKey(roomId));
+    }
+
+    private long insertRoom() {
+        GameState gameState = new GameState();
+        long key;
+        do {
+            key = RoomIds.generate();
+        } while (rooms.putIfAbsent(key, gameState) != null);
+        return key;
+    }
+
+    private void removeRoom(long key, GameState gameState) {
+        RoomRemovedEvent event = new RoomRemovedEvent();
+        event.start();
+        rooms.remove(key);
+        matchmaking.remove(key);
+        String alias = aliasOfRoom.remove(key);
+        if (alias != null) {
+            roomAliases.remove(alias, key);
+        }
+        lobbyDirectory.remove(RoomIds.encode(key));
+        for (String spectator : gameState.getSpectators()) {
+            spectatorRoomMap.remove(spectator, key);
+        }
+        event.finish(RoomIds.encode(key));
+    }
+
+    private JoinRoomResponse seatPlayer(long key, GameState room, String username) {
+        String roomId = RoomIds.encode(key);
+        String symbol = room.assignSymbol(username);
+        playerRoomMap.put(username, key);
+        lobbyDirectory.update(roomId, room);
+        Map<String, String> playerSymbols = room.getPlayerSymbols();
+        if (playerSymbols.size() == 1) {
+            matchmaking.add(key, ratingService.getRating(username));
+        } else {
+            matchmaking.remove(key);
+        }
+        logger.info("Players in room {}: {}", roomId, playerSymbols);
+        return new JoinRoomResponse(roomId, symbol);
+    }
+
+    private void recordResult(GameState state) {
+        String winnerSymbol = state.claimResult();
+        if (winnerSymbol == null) {
+            return;
+        }
+        String winner = null;
+        String loser = null;
+        for (Map.Entry<String, String> entry : state.getPlayerSymbols().entrySet()) {
+            if (entry.getValue().equals(winnerSymbol)) {
+                winner = entry.getKey();
+            } else {
+                loser = entry.getKey();
+            }
+        }
+        // The winner's opponent left, the game was already rated as a forfeit
+        if (winner != null && loser != null) {
+            ratingService.recordResult(winner, loser);
+        }
+    }
+
     /**
      * Response class for joinRoom method.
      */
@@ -273,4 +512,4 @@ public class GameService {
             return playerSymbol;
         }
     }
-}
\ No newline at end of file
+}
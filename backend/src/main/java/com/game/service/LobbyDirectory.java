@@ -0,0 +1,239 @@
+package com.game.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import com.game.model.GameState;
+import com.game.model.RoomStatus;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lobby view of the open and running rooms.
+ * <p>
+ * Keeps one index per {@link RoomStatus}, ordered by creation, which {@link GameService} updates
+ * as rooms are created, joined, left and removed. Listing the lobby is a cursor-paginated walk
+ * over one index and never scans all rooms. Every change is also pushed to /topic/lobby as a delta.
+ * <p>
+ * Deltas are published after the change and may reach subscribers out of order. Each change gets
+ * a version that increases with every change of the same room, carried by the entry and by the
+ * removal delta, so clients keep the highest version per room and drop older deltas.
+ */
+@Service
+public class LobbyDirectory {
+
+    private static final Logger logger = LoggerFactory.getLogger(LobbyDirectory.class);
+
+    public static final String LOBBY_TOPIC = "/topic/lobby";
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    // Creation sequence, gives a stable creation-time order and doubles as the pagination cursor
+    private final AtomicLong sequence = new AtomicLong();
+    // Change counter, taken under the entry lock so versions of one room follow its changes
+    private final AtomicLong versions = new AtomicLong();
+    // Stores roomId to current lobby entry mapping, decides which index a room lives in
+    private final Map<String, LobbyEntry> entries = new ConcurrentHashMap<>();
+    // Secondary indexes: status to (creation sequence to entry)
+    private final Map<RoomStatus, ConcurrentSkipListMap<Long, LobbyEntry>> indexes = new EnumMap<>(RoomStatus.class);
+
+    public LobbyDirectory() {
+        for (RoomStatus status : RoomStatus.values()) {
+            indexes.put(status, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    /**
+     * Adds a newly created room to the lobby. A room that is re-created under the same ID
+     * replaces its previous entry and moves to the end of the creation order.
+     *
+     * @param roomId the ID of the room
+     */
+    public void register(String roomId) {
+        LobbyEntry entry = entries.compute(roomId, (id, previous) -> {
+            if (previous != null) {
+                indexes.get(previous.getStatus()).remove(previous.sequence);
+            }
+            LobbyEntry created = new LobbyEntry(id, 0, System.currentTimeMillis(), sequence.incrementAndGet(),
+                    versions.incrementAndGet());
+            indexes.get(created.getStatus()).put(created.sequence, created);
+            return created;
+        });
+        publishUpdated(entry);
+    }
+
+    /**
+     * Re-indexes a room after its players changed.
+     *
+     * @param roomId    the ID of the room
+     * @param gameState the current state of the room
+     */
+    public void update(String roomId, GameState gameState) {
+        LobbyEntry[] changed = new LobbyEntry[1];
+        entries.computeIfPresent(roomId, (id, previous) -> {
+            // Read the player count under the entry lock so the last update always wins
+            int players = gameState.getPlayers();
+            if (players == previous.getPlayerCount()) {
+                return previous;
+            }
+            LobbyEntry updated = new LobbyEntry(id, players, previous.getCreatedAt(), previous.sequence,
+                    versions.incrementAndGet());
+            if (updated.getStatus() != previous.getStatus()) {
+                indexes.get(previous.getStatus()).remove(previous.sequence);
+            }
+            indexes.get(updated.getStatus()).put(updated.sequence, updated);
+            changed[0] = updated;
+            return updated;
+        });
+        if (changed[0] != null) {
+            publishUpdated(changed[0]);
+        }
+    }
+
+    /**
+     * Removes a room from the lobby.
+     *
+     * @param roomId the ID of the room
+     */
+    public void remove(String roomId) {
+        long[] removedVersion = new long[1];
+        entries.computeIfPresent(roomId, (id, previous) -> {
+            indexes.get(previous.getStatus()).remove(previous.sequence);
+            removedVersion[0] = versions.incrementAndGet();
+            return null;
+        });
+        if (removedVersion[0] != 0) {
+            messagingTemplate.convertAndSend(LOBBY_TOPIC,
+                    Map.of("type", "lobby_room_removed", "roomId", roomId, "version", removedVersion[0]));
+        }
+    }
+
+    /**
+     * Retrieves one page of rooms with the given status, oldest first.
+     *
+     * @param status the status to list
+     * @param cursor the cursor returned with the previous page, or null/empty for the first page
+     * @param limit  the page size, clamped to 1..MAX_PAGE_SIZE
+     * @return the page of rooms and the cursor of the next page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public LobbyPage getPage(RoomStatus status, String cursor, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        NavigableMap<Long, LobbyEntry> index = indexes.get(status);
+        if (cursor != null && !cursor.isEmpty()) {
+            index = index.tailMap(parseCursor(cursor), false);
+        }
+        List<LobbyEntry> rooms = new ArrayList<>(size);
+        String nextCursor = null;
+        for (LobbyEntry entry : index.values()) {
+            if (rooms.size() == size) {
+                nextCursor = rooms.get(size - 1).getCursor();
+                break;
+            }
+            rooms.add(entry);
+        }
+        return new LobbyPage(status, rooms, nextCursor);
+    }
+
+    private void publishUpdated(LobbyEntry entry) {
+        logger.debug("Lobby entry for room {} is now {}", entry.getRoomId(), entry.getStatus());
+        messagingTemplate.convertAndSend(LOBBY_TOPIC, Map.of("type", "lobby_room_updated", "room", entry));
+    }
+
+    private static long parseCursor(String cursor) {
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid lobby cursor: " + cursor, e);
+        }
+    }
+
+    /**
+     * Lobby entry of a single room.
+     */
+    public static class LobbyEntry {
+        private final String roomId;
+        private final int playerCount;
+        private final long createdAt;
+        private final long sequence;
+        private final long version;
+
+        LobbyEntry(String roomId, int playerCount, long createdAt, long sequence, long version) {
+            this.roomId = roomId;
+            this.playerCount = playerCount;
+            this.createdAt = createdAt;
+            this.sequence = sequence;
+            this.version = version;
+        }
+
+        public String getRoomId() {
+            return roomId;
+        }
+
+        public RoomStatus getStatus() {
+            return RoomStatus.of(playerCount);
+        }
+
+        public int getPlayerCount() {
+            return playerCount;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        public String getCursor() {
+            return Long.toString(sequence);
+        }
+
+        /**
+         * @return the version of this entry, higher than any earlier entry or removal of the same room
+         */
+        public long getVersion() {
+            return version;
+        }
+    }
+
+    /**
+     * One page of lobby entries.
+     */
+    public static class LobbyPage {
+        private final RoomStatus status;
+        private final List<LobbyEntry> rooms;
+        private final String nextCursor;
+
+        public LobbyPage(RoomStatus status, List<LobbyEntry> rooms, String nextCursor) {
+            this.status = status;
+            this.rooms = rooms;
+            this.nextCursor = nextCursor;
+        }
+
+        public RoomStatus getStatus() {
+            return status;
+        }
+
+        public List<LobbyEntry> getRooms() {
+            return rooms;
+        }
+
+        /**
+         * @return the cursor of the next page, or null if this is the last page
+         */
+        public String getNextCursor() {
+            return nextCursor;
+        }
+    }
+}
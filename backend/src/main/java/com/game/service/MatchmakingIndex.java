@@ -0,0 +1,224 @@
+package com.game.service;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.LongSupplier;
+
+/**
+ * Rooms waiting for a second player, bucketed by the rating of the seated player.
+ * <p>
+ * A waiting room accepts joiners whose rating is within its window, which starts at the base
+ * window and widens the longer the room waits. A joiner is paired with the closest-rated room
+ * that accepts it, found by visiting buckets outwards from its own rating: only as far as the
+ * widest window (the oldest room's) reaches, and only while a bucket can still hold a closer
+ * room than the best one found. Every room of a bucket within the base window of the joiner
+ * accepts it, so there the closest room is looked up by rating. Further out, rooms are scanned
+ * oldest first and the scan stops as soon as a room's window cannot reach the joiner. Pairing
+ * cost depends on the number of buckets in range, not on the queue size.
+ */
+public class MatchmakingIndex {
+
+    public static final long NO_MATCH = 0L;
+
+    public static final int DEFAULT_BUCKET_WIDTH = 50;
+    public static final double DEFAULT_BASE_WINDOW = 100;
+    public static final double DEFAULT_WIDEN_PER_SECOND = 10;
+
+    private final int bucketWidth;
+    private final double baseWindow;
+    private final double widenPerSecond;
+    private final LongSupplier clock;
+
+    // Stores room ID to waiting room mapping, oldest first
+    private final LinkedHashMap<Long, WaitingRoom> waiting = new LinkedHashMap<>();
+    // Stores rating bucket to waiting rooms in that bucket
+    private final Map<Integer, Bucket> buckets = new HashMap<>();
+
+    public MatchmakingIndex() {
+        this(DEFAULT_BUCKET_WIDTH, DEFAULT_BASE_WINDOW, DEFAULT_WIDEN_PER_SECOND, System::currentTimeMillis);
+    }
+
+    /**
+     * @param bucketWidth    the rating span of one bucket
+     * @param baseWindow     the rating window of a room that just started waiting, at least bucketWidth
+     * @param widenPerSecond how much the window grows per second of waiting
+     * @param clock          the time source in milliseconds
+     */
+    public MatchmakingIndex(int bucketWidth, double baseWindow, double widenPerSecond, LongSupplier clock) {
+        if (bucketWidth <= 0 || baseWindow < bucketWidth || widenPerSecond < 0) {
+            throw new IllegalArgumentException("Invalid matchmaking parameters");
+        }
+        this.bucketWidth = bucketWidth;
+        this.baseWindow = baseWindow;
+        this.widenPerSecond = widenPerSecond;
+        this.clock = clock;
+    }
+
+    /**
+     * Adds a room waiting for a second player. Re-adding a room restarts its wait.
+     *
+     * @param roomKey the internal room ID
+     * @param rating  the rating of the seated player
+     */
+    public synchronized void add(long roomKey, double rating) {
+        remove(roomKey);
+        WaitingRoom room = new WaitingRoom(roomKey, rating, bucketOf(rating), clock.getAsLong());
+        waiting.put(roomKey, room);
+        buckets.computeIfAbsent(room.bucket, bucket -> new Bucket()).add(room);
+    }
+
+    /**
+     * Removes a room that is no longer waiting.
+     *
+     * @param roomKey the internal room ID
+     * @return true if the room was waiting
+     */
+    public synchronized boolean remove(long roomKey) {
+        WaitingRoom room = waiting.remove(roomKey);
+        if (room == null) {
+            return false;
+        }
+        Bucket bucket = buckets.get(room.bucket);
+        bucket.remove(room);
+        if (bucket.byAge.isEmpty()) {
+            buckets.remove(room.bucket);
+        }
+        return true;
+    }
+
+    /**
+     * Finds the closest-rated waiting room whose window accepts the joiner and removes it from
+     * the index, so that concurrent joiners never claim the same room.
+     *
+     * @param rating the rating of the joining player
+     * @return the internal room ID, or NO_MATCH if no waiting room accepts the joiner
+     */
+    public synchronized long claim(double rating) {
+        if (waiting.isEmpty()) {
+            return NO_MATCH;
+        }
+        long now = clock.getAsLong();
+        // The oldest room has the widest window, nothing beyond it can match
+        double reach = windowOf(waiting.values().iterator().next(), now);
+        int home = bucketOf(rating);
+        int maxDistance = (int) Math.ceil(reach / bucketWidth);
+        WaitingRoom match = null;
+        for (int distance = 0; distance <= maxDistance; distance++) {
+            double nearest = Math.min(distanceToBucket(home - distance, rating), distanceToBucket(home + distance, rating));
+            if (match != null && nearest >= Math.abs(match.rating - rating)) {
+                // Buckets from here on are no closer than the match
+                break;
+            }
+            WaitingRoom below = scan(home - distance, rating, now);
+            WaitingRoom above = distance == 0 ? null : scan(home + distance, rating, now);
+            match = closer(rating, match, closer(rating, below, above));
+        }
+        if (match == null) {
+            return NO_MATCH;
+        }
+        remove(match.roomKey);
+        return match.roomKey;
+    }
+
+    public synchronized int size() {
+        return waiting.size();
+    }
+
+    private WaitingRoom scan(int bucket, double rating, long now) {
+        Bucket rooms = buckets.get(bucket);
+        if (rooms == null) {
+            return null;
+        }
+        double low = (double) bucket * bucketWidth;
+        if (Math.max(rating - low, low + bucketWidth - rating) <= baseWindow) {
+            // Every room in the bucket accepts the joiner
+            return closer(rating, rooms.byRating.floor(WaitingRoom.probe(rating, Long.MAX_VALUE)),
+                    rooms.byRating.ceiling(WaitingRoom.probe(rating, Long.MIN_VALUE)));
+        }
+        double minDistance = distanceToBucket(bucket, rating);
+        WaitingRoom closest = null;
+        Iterator<WaitingRoom> iterator = rooms.byAge.values().iterator();
+        while (iterator.hasNext()) {
+            WaitingRoom room = iterator.next();
+            double window = windowOf(room, now);
+            if (window < minDistance) {
+                // Younger rooms have narrower windows, none of them can reach the joiner either
+                break;
+            }
+            double gap = Math.abs(room.rating - rating);
+            if (gap <= window && (closest == null || gap < Math.abs(closest.rating - rating))) {
+                closest = room;
+            }
+        }
+        return closest;
+    }
+
+    private double distanceToBucket(int bucket, double rating) {
+        double low = (double) bucket * bucketWidth;
+        double high = low + bucketWidth;
+        if (rating < low) {
+            return low - rating;
+        }
+        if (rating >= high) {
+            return rating - high;
+        }
+        return 0;
+    }
+
+    private double windowOf(WaitingRoom room, long now) {
+        return baseWindow + widenPerSecond * Math.max(0, now - room.since) / 1000.0;
+    }
+
+    private int bucketOf(double rating) {
+        return (int) Math.floor(rating / bucketWidth);
+    }
+
+    private static WaitingRoom closer(double rating, WaitingRoom first, WaitingRoom second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        return Math.abs(first.rating - rating) <= Math.abs(second.rating - rating) ? first : second;
+    }
+
+    private static final class Bucket {
+        // Stores room ID to waiting room mapping, oldest first
+        final LinkedHashMap<Long, WaitingRoom> byAge = new LinkedHashMap<>();
+        final TreeSet<WaitingRoom> byRating = new TreeSet<>(
+                Comparator.comparingDouble((WaitingRoom room) -> room.rating).thenComparingLong(room -> room.roomKey));
+
+        void add(WaitingRoom room) {
+            byAge.put(room.roomKey, room);
+            byRating.add(room);
+        }
+
+        void remove(WaitingRoom room) {
+            byAge.remove(room.roomKey);
+            byRating.remove(room);
+        }
+    }
+
+    private static final class WaitingRoom {
+        final long roomKey;
+        final double rating;
+        final int bucket;
+        final long since;
+
+        WaitingRoom(long roomKey, double rating, int bucket, long since) {
+            this.roomKey = roomKey;
+            this.rating = rating;
+            this.bucket = bucket;
+            this.since = since;
+        }
+
+        static WaitingRoom probe(double rating, long roomKey) {
+            return new WaitingRoom(roomKey, rating, 0, 0);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.game.service;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Elo ratings per username, updated when a game ends. Kept in memory and periodically saved to
+ * a JSON file, which is loaded again on startup.
+ */
+@Service
+@Lazy(false) // Scheduled save must start with the app, even under lazy initialization
+public class RatingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RatingService.class);
+
+    public static final double INITIAL_RATING = 1200;
+    private static final double K_FACTOR = 32;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${ratings.file}")
+    private String ratingsFile;
+
+    // Stores username to rating mapping
+    private final Map<String, PlayerRating> ratings = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+    private final Object saveLock = new Object();
+
+    /**
+     * Retrieves the rating of a player.
+     *
+     * @param username the username of the player
+     * @return the rating, or INITIAL_RATING for players without games
+     */
+    public double getRating(String username) {
+        PlayerRating rating = username != null ? ratings.get(username) : null;
+        return rating != null ? rating.getRating() : INITIAL_RATING;
+    }
+
+    /**
+     * Retrieves the rating record of a player.
+     *
+     * @param username the username of the player
+     * @return the rating record, with INITIAL_RATING and no games for unknown players
+     */
+    public PlayerRating getPlayerRating(String username) {
+        return ratings.getOrDefault(username, new PlayerRating(INITIAL_RATING, 0, 0));
+    }
+
+    /**
+     * Updates both players' ratings after a decided game.
+     *
+     * @param winner the username of the winner
+     * @param loser  the username of the loser
+     */
+    public synchronized void recordResult(String winner, String loser) {
+        PlayerRating winnerRating = getPlayerRating(winner);
+        PlayerRating loserRating = getPlayerRating(loser);
+        double expected = 1 / (1 + Math.pow(10, (loserRating.getRating() - winnerRating.getRating()) / 400));
+        double change = K_FACTOR * (1 - expected);
+        ratings.put(winner, new PlayerRating(winnerRating.getRating() + change,
+                winnerRating.getGames() + 1, winnerRating.getWins() + 1));
+        ratings.put(loser, new PlayerRating(loserRating.getRating() - change,
+                loserRating.getGames() + 1, loserRating.getWins()));
+        dirty = true;
+        logger.info("Game result {} beat {}, rating change {}", winner, loser, Math.round(change));
+    }
+
+    @PostConstruct
+    public void load() {
+        Path path = Paths.get(ratingsFile);
+        if (!Files.exists(path)) {
+            return;
+        }
+        try {
+            ratings.putAll(objectMapper.readValue(path.toFile(), new TypeReference<Map<String, PlayerRating>>() {
+            }));
+            logger.info("Loaded {} player ratings from {}", ratings.size(), path);
+        } catch (IOException e) {
+            logger.error("Could not load player ratings from {}", path, e);
+        }
+    }
+
+    /*
+     * Save ratings to disk if they changed, at every 30 seconds
+     */
+    @Scheduled(fixedRate = 30000)
+    @PreDestroy
+    public void save() {
+        synchronized (saveLock) {
+            if (!dirty) {
+                return;
+            }
+            dirty = false;
+            Path path = Paths.get(ratingsFile).toAbsolutePath();
+            try {
+                Files.createDirectories(path.getParent());
+                // Write aside and move into place so a crash never leaves a truncated file
+                Path temp = Files.createTempFile(path.getParent(), "ratings", ".tmp");
+                objectMapper.writeValue(temp.toFile(), new HashMap<>(ratings));
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                dirty = true;
+                logger.error("Could not save player ratings to {}", path, e);
+            }
+        }
+    }
+
+    /**
+     * Rating record of a single player.
+     */
+    public static class PlayerRating {
+        private final double rating;
+        private final int games;
+        private final int wins;
+
+        @JsonCreator
+        public PlayerRating(@JsonProperty("rating") double rating,
+                            @JsonProperty("games") int games,
+                            @JsonProperty("wins") int wins) {
+            this.rating = rating;
+            this.games = games;
+            this.wins = wins;
+        }
+
+        public double getRating() {
+            return rating;
+        }
+
+        public int getGames() {
+            return games;
+        }
+
+        public int getWins() {
+            return wins;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.game.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.jfr.BroadcastEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.WebSocketHandler;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Low-priority, coalescing delivery of room state to spectators.
+ * <p>
+ * Players keep receiving every event on {@code /topic/room/{roomId}} immediately. Spectators
+ * subscribe to {@code /topic/spectate/{roomId}} instead: state changes only mark the room dirty,
+ * and a scheduled flush sends the latest snapshot of each dirty room to its spectators, dropping
+ * intermediate states. Each snapshot is serialized once per flush and the same payload is shared
+ * by every spectator message.
+ * <p>
+ * Spectator messages do not go through the broker or its client outbound channel. They are
+ * written to the sessions by a dedicated single-thread executor with a bounded queue, so player
+ * messages never queue behind spectator fan-out. Each flush hands at most
+ * spectator.max-deliveries-per-flush messages to that executor, never more than its queue has
+ * room for. A room with more spectators than that is delivered over several flushes, with the
+ * latest snapshot at each flush, before it is sent again from the start.
+ */
+@Service
+@Lazy(false) // Scheduled flush must start with the app, even under lazy initialization
+public class SpectatorBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpectatorBroadcaster.class);
+
+    public static final String SPECTATE_TOPIC = "/topic/spectate/";
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Writes messages to WebSocket sessions, the end of the broker's outbound path
+    @Autowired
+    @Qualifier("subProtocolWebSocketHandler")
+    private WebSocketHandler sessionHandler;
+
+    @Value("${spectator.max-deliveries-per-flush:200}")
+    private int maxDeliveriesPerFlush;
+
+    @Value("${spectator.outbound-queue-capacity:1000}")
+    private int outboundQueueCapacity;
+
+    private ThreadPoolTaskExecutor spectatorExecutor;
+    private ExecutorSubscribableChannel spectatorChannel;
+
+    // Stores room ID to spectator session ID to subscription ID mapping
+    private final Map<String, Map<String, String>> subscribers = new ConcurrentHashMap<>();
+    // Stores session ID to subscription ID to room ID mapping, for unsubscribe and disconnect
+    private final Map<String, Map<String, String>> subscriptionsBySession = new ConcurrentHashMap<>();
+
+    // Rooms waiting to be flushed, in flush order, and the same rooms as a set
+    private final Deque<String> flushQueue = new ConcurrentLinkedDeque<>();
+    private final Set<String> queuedRooms = ConcurrentHashMap.newKeySet();
+    // Stores room ID to the sessions still missing the room's current round
+    private final Map<String, Deque<String>> pendingSessions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        if (!(sessionHandler instanceof MessageHandler)) {
+            throw new IllegalStateException("WebSocket handler cannot deliver messages: " + sessionHandler);
+        }
+        spectatorExecutor = new ThreadPoolTaskExecutor();
+        spectatorExecutor.setCorePoolSize(1); // One thread keeps each session's messages in order
+        spectatorExecutor.setMaxPoolSize(1);
+        spectatorExecutor.setQueueCapacity(outboundQueueCapacity);
+        spectatorExecutor.setThreadNamePrefix("spectatorOutbound-");
+        spectatorExecutor.initialize();
+        spectatorChannel = new ExecutorSubscribableChannel(spectatorExecutor);
+        spectatorChannel.subscribe((MessageHandler) sessionHandler);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        spectatorExecutor.shutdown();
+    }
+
+    /**
+     * Marks a room as changed so that spectators receive its latest state on the next flush.
+     *
+     * @param roomId the ID of the room
+     */
+    public void roomChanged(String roomId) {
+        if (roomId != null && queuedRooms.add(roomId)) {
+            flushQueue.addLast(roomId);
+        }
+    }
+
+    /**
+     * Registers a session's subscription to a spectate topic.
+     *
+     * @param destination    the subscribed destination
+     * @param sessionId      the ID of the WebSocket session
+     * @param subscriptionId the session's ID for the subscription
+     */
+    public void subscribed(String destination, String sessionId, String subscriptionId) {
+        if (destination == null || !destination.startsWith(SPECTATE_TOPIC) || sessionId == null || subscriptionId == null) {
+            return;
+        }
+        String roomId = destination.substring(SPECTATE_TOPIC.length());
+        subscribers.compute(roomId, (id, sessions) -> {
+            Map<String, String> updated = sessions != null ? sessions : new ConcurrentHashMap<>();
+            updated.put(sessionId, subscriptionId);
+            return updated;
+        });
+        subscriptionsBySession.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>()).put(subscriptionId, roomId);
+    }
+
+    /**
+     * Forgets a session's subscription, if it was to a spectate topic.
+     *
+     * @param sessionId      the ID of the WebSocket session
+     * @param subscriptionId the session's ID for the subscription
+     */
+    public void unsubscribed(String sessionId, String subscriptionId) {
+        Map<String, String> subscriptions = sessionId != null ? subscriptionsBySession.get(sessionId) : null;
+        String roomId = subscriptions != null && subscriptionId != null ? subscriptions.remove(subscriptionId) : null;
+        if (roomId != null) {
+            removeSubscriber(roomId, sessionId, subscriptionId);
+        }
+    }
+
+    /**
+     * Forgets every spectate subscription of a closed session.
+     *
+     * @param sessionId the ID of the WebSocket session
+     */
+    public void sessionClosed(String sessionId) {
+        Map<String, String> subscriptions = sessionId != null ? subscriptionsBySession.remove(sessionId) : null;
+        if (subscriptions != null) {
+            subscriptions.forEach((subscriptionId, roomId) -> removeSubscriber(roomId, sessionId, subscriptionId));
+        }
+    }
+
+    /*
+     * Flush the latest state of changed rooms to their spectators, within the delivery budget
+     */
+    @Scheduled(fixedRateString = "${spectator.flush-interval-ms:250}")
+    public void flushSpectatorUpdates() {
+        if (flushQueue.isEmpty()) {
+            return;
+        }
+        BroadcastEvent event = BroadcastEvent.start("spectators");
+        int budget = Math.min(maxDeliveriesPerFlush,
+                spectatorExecutor.getThreadPoolExecutor().getQueue().remainingCapacity());
+        int flushedRooms = 0;
+        try {
+            String roomId;
+            while (budget > 0 && (roomId = flushQueue.pollFirst()) != null) {
+                Deque<String> pending = pendingSessions.get(roomId);
+                if (pending == null) {
+                    // Start a new round, changes from now on queue the room again
+                    queuedRooms.remove(roomId);
+                    Map<String, String> sessions = subscribers.get(roomId);
+                    if (sessions == null || sessions.isEmpty()) {
+                        continue;
+                    }
+                    pending = new ArrayDeque<>(sessions.keySet());
+                    pendingSessions.put(roomId, pending);
+                }
+                byte[] payload = snapshot(roomId);
+                int delivered = deliver(roomId, payload, pending, budget);
+                budget -= delivered;
+                BroadcastEvent.addPayload(payload.length * delivered);
+                if (pending.isEmpty()) {
+                    pendingSessions.remove(roomId);
+                    flushedRooms++;
+                    logger.debug("Flushed spectator update for room {}", roomId);
+                } else {
+                    // Out of budget, finish this round first on the next flush
+                    flushQueue.addFirst(roomId);
+                }
+            }
+        } finally {
+            event.finish(flushedRooms);
+        }
+    }
+
+    private int deliver(String roomId, byte[] payload, Deque<String> pending, int budget) {
+        Map<String, String> sessions = subscribers.getOrDefault(roomId, Map.of());
+        int delivered = 0;
+        String sessionId;
+        while (delivered < budget && (sessionId = pending.pollFirst()) != null) {
+            String subscriptionId = sessions.get(sessionId);
+            if (subscriptionId == null) {
+                continue; // Unsubscribed since the round started
+            }
+            try {
+                spectatorChannel.send(message(roomId, payload, sessionId, subscriptionId));
+                delivered++;
+            } catch (MessageDeliveryException e) {
+                // Executor queue is full, retry this session on the next flush
+                pending.addFirst(sessionId);
+                break;
+            }
+        }
+        return delivered;
+    }
+
+    private byte[] snapshot(String roomId) {
+        Map<String, Object> view = gameService.getSpectatorView(roomId);
+        // Room was removed, let any remaining spectators know
+        Object payload = view != null ? view : Map.of("type", "room_closed", "roomId", roomId);
+        try {
+            return objectMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize spectator view of room " + roomId, e);
+        }
+    }
+
+    private static Message<byte[]> message(String roomId, byte[] payload, String sessionId, String subscriptionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(SPECTATE_TOPIC + roomId);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    private void removeSubscriber(String roomId, String sessionId, String subscriptionId) {
+        subscribers.computeIfPresent(roomId, (id, sessions) -> {
+            sessions.remove(sessionId, subscriptionId);
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+}
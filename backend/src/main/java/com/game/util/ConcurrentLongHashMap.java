@@ -0,0 +1,322 @@
+package com.game.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Concurrent map from primitive {@code long} keys to values, without boxing the keys.
+ * <p>
+ * Keys are spread over independently locked segments. Each segment is an open-addressing table
+ * with linear probing, stored as parallel key and value arrays. Reads are optimistic and only
+ * take the segment lock if a write raced with them. Key 0 is reserved to mark empty slots.
+ *
+ * @param <V> the type of mapped values
+ */
+public class ConcurrentLongHashMap<V> {
+
+    private static final long EMPTY = 0L;
+    private static final int DEFAULT_CAPACITY = 256;
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    private final Segment<V>[] segments;
+    private final int segmentMask;
+
+    public ConcurrentLongHashMap() {
+        this(DEFAULT_CAPACITY, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * @param expectedSize     the number of entries to size the tables for
+     * @param concurrencyLevel the number of segments, rounded up to a power of two
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public ConcurrentLongHashMap(int expectedSize, int concurrencyLevel) {
+        int segmentCount = powerOfTwo(Math.max(1, concurrencyLevel));
+        int segmentCapacity = powerOfTwo(Math.max(2, 2 * expectedSize / segmentCount));
+        this.segments = new Segment[segmentCount];
+        this.segmentMask = segmentCount - 1;
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(segmentCapacity);
+        }
+    }
+
+    public V get(long key) {
+        long hash = hash(key);
+        return segmentFor(hash).get(key, (int) hash);
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * @return the previous value, or null if there was none
+     */
+    public V put(long key, V value) {
+        long hash = hash(checkKey(key));
+        return segmentFor(hash).put(key, (int) hash, Objects.requireNonNull(value), false);
+    }
+
+    /**
+     * @return the current value if the key was already mapped, or null if the value was inserted
+     */
+    public V putIfAbsent(long key, V value) {
+        long hash = hash(checkKey(key));
+        return segmentFor(hash).put(key, (int) hash, Objects.requireNonNull(value), true);
+    }
+
+    /**
+     * @return the removed value, or null if the key was not mapped
+     */
+    public V remove(long key) {
+        if (key == EMPTY) {
+            return null;
+        }
+        long hash = hash(key);
+        return segmentFor(hash).remove(key, (int) hash, null);
+    }
+
+    /**
+     * Removes the key only if it is currently mapped to the given value.
+     *
+     * @return true if the entry was removed
+     */
+    public boolean remove(long key, Object value) {
+        if (key == EMPTY) {
+            return false;
+        }
+        long hash = hash(key);
+        return segmentFor(hash).remove(key, (int) hash, Objects.requireNonNull(value)) != null;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment<V> segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Visits every entry. Each segment is copied under its lock and visited afterwards, so the
+     * consumer may safely call back into this map.
+     */
+    public void forEach(EntryConsumer<? super V> consumer) {
+        for (Segment<V> segment : segments) {
+            Segment.Snapshot<V> snapshot = segment.snapshot();
+            for (int i = 0; i < snapshot.count; i++) {
+                consumer.accept(snapshot.keys[i], snapshot.values.get(i));
+            }
+        }
+    }
+
+    private Segment<V> segmentFor(long hash) {
+        return segments[(int) (hash >>> 32) & segmentMask];
+    }
+
+    private static long checkKey(long key) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+        return key;
+    }
+
+    // Murmur3 finalizer, high bits pick the segment and low bits the slot
+    private static long hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static int powerOfTwo(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    private static final class Segment<V> {
+        private final StampedLock lock = new StampedLock();
+        private long[] keys;
+        private Object[] values;
+        private volatile int size;
+
+        Segment(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+        }
+
+        V get(long key, int hash) {
+            long stamp = lock.tryOptimisticRead();
+            V value = find(keys, values, key, hash);
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    value = find(keys, values, key, hash);
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            return value;
+        }
+
+        V put(long key, int hash, V value, boolean onlyIfAbsent) {
+            long stamp = lock.writeLock();
+            try {
+                int mask = keys.length - 1;
+                int index = hash & mask;
+                while (keys[index] != EMPTY) {
+                    if (keys[index] == key) {
+                        V previous = cast(values[index]);
+                        if (!onlyIfAbsent) {
+                            values[index] = value;
+                        }
+                        return previous;
+                    }
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+                values[index] = value;
+                size++;
+                // Keep the load factor at or below 1/2 so probe sequences stay short
+                if (size > keys.length >> 1) {
+                    resize();
+                }
+                return null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        V remove(long key, int hash, Object expected) {
+            long stamp = lock.writeLock();
+            try {
+                int mask = keys.length - 1;
+                int index = hash & mask;
+                while (keys[index] != key) {
+                    if (keys[index] == EMPTY) {
+                        return null;
+                    }
+                    index = (index + 1) & mask;
+                }
+                V previous = cast(values[index]);
+                if (expected != null && !expected.equals(previous)) {
+                    return null;
+                }
+                shiftBack(index, mask);
+                size--;
+                return previous;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        Snapshot<V> snapshot() {
+            long stamp = lock.readLock();
+            try {
+                long[] copiedKeys = new long[size];
+                List<V> copiedValues = new ArrayList<>(size);
+                int count = 0;
+                for (int i = 0; i < keys.length; i++) {
+                    if (keys[i] != EMPTY) {
+                        copiedKeys[count++] = keys[i];
+                        copiedValues.add(cast(values[i]));
+                    }
+                }
+                return new Snapshot<>(copiedKeys, copiedValues, count);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        // Backward-shift deletion: pull later entries of the probe chain into the freed slot
+        private void shiftBack(int freed, int mask) {
+            int index = freed;
+            while (true) {
+                index = (index + 1) & mask;
+                long key = keys[index];
+                if (key == EMPTY) {
+                    break;
+                }
+                int home = (int) hash(key) & mask;
+                // Move the entry unless its home slot lies cyclically in (freed, index]
+                boolean stays = freed <= index ? (freed < home && home <= index) : (freed < home || home <= index);
+                if (!stays) {
+                    keys[freed] = key;
+                    values[freed] = values[index];
+                    freed = index;
+                }
+            }
+            keys[freed] = EMPTY;
+            values[freed] = null;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            Object[] oldValues = values;
+            long[] newKeys = new long[oldKeys.length << 1];
+            Object[] newValues = new Object[oldKeys.length << 1];
+            int mask = newKeys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int index = (int) hash(oldKeys[i]) & mask;
+                    while (newKeys[index] != EMPTY) {
+                        index = (index + 1) & mask;
+                    }
+                    newKeys[index] = oldKeys[i];
+                    newValues[index] = oldValues[i];
+                }
+            }
+            keys = newKeys;
+            values = newValues;
+        }
+
+        // May run without the lock: the arrays can be torn, the result is only used once validated
+        private static <V> V find(long[] keys, Object[] values, long key, int hash) {
+            if (keys.length != values.length) {
+                return null;
+            }
+            int mask = keys.length - 1;
+            int index = hash & mask;
+            for (int probes = 0; probes < keys.length; probes++) {
+                long current = keys[index];
+                if (current == key) {
+                    return cast(values[index]);
+                }
+                if (current == EMPTY) {
+                    return null;
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <V> V cast(Object value) {
+            return (V) value;
+        }
+
+        private static final class Snapshot<V> {
+            final long[] keys;
+            final List<V> values;
+            final int count;
+
+            Snapshot(long[] keys, List<V> values, int count) {
+                this.keys = keys;
+                this.values = values;
+                this.count = count;
+            }
+        }
+    }
+}
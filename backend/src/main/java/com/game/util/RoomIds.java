@@ -0,0 +1,91 @@
+package com.game.util;
+
+import java.security.SecureRandom;
+
+/**
+ * Room IDs are 64-bit values, shown to users as short base62 codes.
+ */
+public final class RoomIds {
+
+    // Reserved, never assigned to a room
+    public static final long NO_ROOM = 0L;
+
+    private static final char[] ALPHABET =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+    private static final int BASE = ALPHABET.length;
+    // 62^7, keeps generated codes at most 7 characters long
+    private static final long GENERATED_RANGE = 3_521_614_606_208L;
+    // Long.MAX_VALUE needs 11 base62 digits
+    private static final int MAX_CODE_LENGTH = 11;
+
+    private static final SecureRandom random = new SecureRandom();
+
+    private RoomIds() {
+    }
+
+    /**
+     * Generates a random room ID. Callers must handle collisions with existing rooms.
+     *
+     * @return a room ID, never NO_ROOM
+     */
+    public static long generate() {
+        long id;
+        do {
+            id = (random.nextLong() >>> 1) % GENERATED_RANGE;
+        } while (id == NO_ROOM);
+        return id;
+    }
+
+    /**
+     * Encodes a room ID as a base62 code.
+     *
+     * @param id the room ID, must be positive
+     * @return the base62 code
+     */
+    public static String encode(long id) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("Room ID must be positive: " + id);
+        }
+        char[] buffer = new char[MAX_CODE_LENGTH];
+        int position = buffer.length;
+        while (id > 0) {
+            buffer[--position] = ALPHABET[(int) (id % BASE)];
+            id /= BASE;
+        }
+        return new String(buffer, position, buffer.length - position);
+    }
+
+    /**
+     * Decodes a base62 code back into a room ID.
+     *
+     * @param code the base62 code
+     * @return the room ID, or NO_ROOM if the code is null, malformed or out of range
+     */
+    public static long decode(String code) {
+        if (code == null || code.isEmpty() || code.length() > MAX_CODE_LENGTH) {
+            return NO_ROOM;
+        }
+        long id = 0;
+        for (int i = 0; i < code.length(); i++) {
+            int digit = digit(code.charAt(i));
+            if (digit < 0 || id > (Long.MAX_VALUE - digit) / BASE) {
+                return NO_ROOM;
+            }
+            id = id * BASE + digit;
+        }
+        return id;
+    }
+
+    private static int digit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 10;
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 36;
+        }
+        return -1;
+    }
+}
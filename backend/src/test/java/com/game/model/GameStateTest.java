@@ -0,0 +1,147 @@
+package com.game.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameStateTest {
+
+    private GameState state;
+
+    @BeforeEach
+    void seatPlayers() {
+        state = new GameState();
+        assertEquals("X", state.assignSymbol("alice"));
+        assertEquals("O", state.assignSymbol("bob"));
+    }
+
+    @Test
+    void acceptsMovesInTurn() {
+        assertTrue(move("alice", 4));
+        assertTrue(move("bob", 0));
+
+        assertEquals(Arrays.asList("O", null, null, null, "X", null, null, null, null), state.getSquares());
+        assertEquals(List.of(4, 0), state.getHistory());
+        assertTrue(state.isXIsNext());
+    }
+
+    @Test
+    void rejectsUpdatesFromOutsideTheRoom() {
+        List<String> squares = new ArrayList<>(Collections.nCopies(9, null));
+        squares.set(4, "X");
+
+        assertFalse(state.applyUpdate("mallory", squares, List.of(4), false));
+        assertEquals(Collections.nCopies(9, null), state.getSquares());
+    }
+
+    @Test
+    void rejectsMovesOutOfTurnOrOnTakenSquares() {
+        assertFalse(move("bob", 4));
+        assertTrue(move("alice", 4));
+        assertFalse(move("alice", 0));
+        assertFalse(move("bob", 4));
+        assertEquals(List.of(4), state.getHistory());
+    }
+
+    @Test
+    void rejectsBoardsThatDoNotFollowFromTheMove() {
+        List<String> squares = new ArrayList<>(Collections.nCopies(9, null));
+        squares.set(0, "X");
+        squares.set(1, "X");
+        squares.set(2, "X");
+
+        assertFalse(state.applyUpdate("alice", squares, List.of(2), false));
+        assertNull(state.claimResult());
+    }
+
+    @Test
+    void removesOldestMarkAfterSixMarks() {
+        int[] moves = {0, 1, 5, 3, 7, 8};
+        for (int i = 0; i < moves.length; i++) {
+            assertTrue(move(i % 2 == 0 ? "alice" : "bob", moves[i]));
+        }
+        assertTrue(move("alice", 4));
+
+        assertEquals(List.of(1, 5, 3, 7, 8, 4), state.getHistory());
+        assertNull(state.getSquares().get(0));
+    }
+
+    @Test
+    void reportsWinOnceAndRejectsMovesAfterIt() {
+        int[] moves = {0, 3, 1, 4, 2};
+        for (int i = 0; i < moves.length; i++) {
+            assertTrue(move(i % 2 == 0 ? "alice" : "bob", moves[i]));
+        }
+
+        assertEquals("X", state.claimResult());
+        assertNull(state.claimResult());
+        assertFalse(move("bob", 5));
+    }
+
+    @Test
+    void rejectsNewGameBeforeTheGameIsWon() {
+        assertTrue(move("alice", 4));
+        assertTrue(move("bob", 0));
+
+        assertFalse(state.applyUpdate("bob", Collections.nCopies(9, null), List.of(), true));
+        assertEquals(List.of(4, 0), state.getHistory());
+    }
+
+    @Test
+    void startsNewGameFromClearedBoardAfterAWin() {
+        int[] moves = {0, 3, 1, 4, 2};
+        for (int i = 0; i < moves.length; i++) {
+            assertTrue(move(i % 2 == 0 ? "alice" : "bob", moves[i]));
+        }
+        assertFalse(state.applyUpdate("mallory", Collections.nCopies(9, null), List.of(), true));
+        assertTrue(state.applyUpdate("bob", Collections.nCopies(9, null), List.of(), true));
+
+        assertEquals(Collections.nCopies(9, null), state.getSquares());
+        assertTrue(state.getHistory().isEmpty());
+        assertTrue(state.isXIsNext());
+        assertTrue(move("alice", 4));
+    }
+
+    @Test
+    void forfeitsOnlyGamesInProgress() {
+        assertNull(state.forfeit("alice"));
+        assertTrue(move("alice", 4));
+        assertNull(state.forfeit("mallory"));
+
+        assertEquals("bob", state.forfeit("alice"));
+        assertTrue(state.getHistory().isEmpty());
+        assertNull(state.forfeit("alice"));
+    }
+
+    @Test
+    void doesNotForfeitWonGames() {
+        int[] moves = {0, 3, 1, 4, 2};
+        for (int i = 0; i < moves.length; i++) {
+            assertTrue(move(i % 2 == 0 ? "alice" : "bob", moves[i]));
+        }
+
+        assertNull(state.forfeit("bob"));
+    }
+
+    // Sends the board the client would send after the player clicks the square
+    private boolean move(String username, int index) {
+        List<String> squares = state.getSquares();
+        List<Integer> history = state.getHistory();
+        String symbol = state.getPlayerSymbol(username);
+        squares.set(index, symbol);
+        history.add(index);
+        if (history.size() > 6) {
+            squares.set(history.remove(0), null);
+        }
+        return state.applyUpdate(username, squares, history, !state.isXIsNext());
+    }
+}
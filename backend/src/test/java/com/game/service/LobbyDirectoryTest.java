@@ -0,0 +1,125 @@
+package com.game.service;
+
+import com.game.model.GameState;
+import com.game.model.RoomStatus;
+import com.game.service.LobbyDirectory.LobbyEntry;
+import com.game.service.LobbyDirectory.LobbyPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LobbyDirectoryTest {
+
+    private final List<Object> deltas = new ArrayList<>();
+    private final LobbyDirectory lobby = new LobbyDirectory();
+
+    @BeforeEach
+    void captureDeltas() {
+        SimpMessagingTemplate template = new SimpMessagingTemplate((Message<?> message, long timeout) -> {
+            deltas.add(message.getPayload());
+            return true;
+        });
+        ReflectionTestUtils.setField(lobby, "messagingTemplate", template);
+    }
+
+    @Test
+    void pagesThroughRoomsInCreationOrder() {
+        for (int i = 1; i <= 5; i++) {
+            lobby.register("room" + i);
+        }
+
+        LobbyPage first = lobby.getPage(RoomStatus.WAITING, null, 2);
+        assertEquals(List.of("room1", "room2"), roomIds(first));
+        assertNotNull(first.getNextCursor());
+
+        LobbyPage second = lobby.getPage(RoomStatus.WAITING, first.getNextCursor(), 2);
+        assertEquals(List.of("room3", "room4"), roomIds(second));
+
+        LobbyPage last = lobby.getPage(RoomStatus.WAITING, second.getNextCursor(), 2);
+        assertEquals(List.of("room5"), roomIds(last));
+        assertNull(last.getNextCursor());
+    }
+
+    @Test
+    void exactlyFullLastPageHasNoNextCursor() {
+        lobby.register("room1");
+        lobby.register("room2");
+
+        LobbyPage page = lobby.getPage(RoomStatus.WAITING, "", 2);
+        assertEquals(List.of("room1", "room2"), roomIds(page));
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        assertThrows(IllegalArgumentException.class, () -> lobby.getPage(RoomStatus.WAITING, "abc", 10));
+    }
+
+    @Test
+    void rejectsUnknownStatus() {
+        assertEquals(RoomStatus.WAITING, RoomStatus.parse(null));
+        assertEquals(RoomStatus.ACTIVE, RoomStatus.parse("active"));
+        assertThrows(IllegalArgumentException.class, () -> RoomStatus.parse("bogus"));
+    }
+
+    @Test
+    void movesRoomsBetweenWaitingAndActive() {
+        lobby.register("room1");
+        lobby.register("room2");
+        GameState room = new GameState();
+        room.assignSymbol("alice");
+        room.assignSymbol("bob");
+
+        lobby.update("room1", room);
+        assertEquals(List.of("room2"), roomIds(lobby.getPage(RoomStatus.WAITING, null, 10)));
+        assertEquals(List.of("room1"), roomIds(lobby.getPage(RoomStatus.ACTIVE, null, 10)));
+
+        room.removePlayer("bob");
+        lobby.update("room1", room);
+        // Back in its original place in the creation order
+        assertEquals(List.of("room1", "room2"), roomIds(lobby.getPage(RoomStatus.WAITING, null, 10)));
+        assertTrue(lobby.getPage(RoomStatus.ACTIVE, null, 10).getRooms().isEmpty());
+
+        lobby.remove("room1");
+        assertEquals(List.of("room2"), roomIds(lobby.getPage(RoomStatus.WAITING, null, 10)));
+    }
+
+    @Test
+    void versionsIncreaseWithEveryChangeOfARoom() {
+        lobby.register("room1");
+        GameState room = new GameState();
+        room.assignSymbol("alice");
+        lobby.update("room1", room);
+        room.assignSymbol("bob");
+        lobby.update("room1", room);
+        lobby.remove("room1");
+
+        List<Long> versions = new ArrayList<>();
+        for (Object delta : deltas) {
+            Map<?, ?> payload = (Map<?, ?>) delta;
+            Object entry = payload.get("room");
+            versions.add(entry != null ? ((LobbyEntry) entry).getVersion() : (Long) payload.get("version"));
+        }
+        assertEquals(4, versions.size());
+        for (int i = 1; i < versions.size(); i++) {
+            assertTrue(versions.get(i) > versions.get(i - 1), "Versions not increasing: " + versions);
+        }
+    }
+
+    private static List<String> roomIds(LobbyPage page) {
+        return page.getRooms().stream().map(LobbyEntry::getRoomId).collect(Collectors.toList());
+    }
+}
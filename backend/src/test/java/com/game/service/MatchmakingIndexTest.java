@@ -0,0 +1,139 @@
+package com.game.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MatchmakingIndexTest {
+
+    private static final double MEAN_RATING = 1500;
+    private static final double RATING_DEVIATION = 300;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final MatchmakingIndex index = new MatchmakingIndex(MatchmakingIndex.DEFAULT_BUCKET_WIDTH,
+            MatchmakingIndex.DEFAULT_BASE_WINDOW, MatchmakingIndex.DEFAULT_WIDEN_PER_SECOND, clock::get);
+
+    @Test
+    void picksClosestRatingWithinWindow() {
+        index.add(1, 1400);
+        index.add(2, 1530);
+        index.add(3, 1480);
+
+        assertEquals(3, index.claim(1490));
+        assertEquals(2, index.claim(1490));
+        assertEquals(MatchmakingIndex.NO_MATCH, index.claim(1600));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void picksClosestRatingAcrossBucketBoundary() {
+        // 1201 shares the joiner's bucket, 1251 is in the next one but closer
+        index.add(1, 1201);
+        index.add(2, 1251);
+
+        assertEquals(2, index.claim(1249));
+        assertEquals(1, index.claim(1249));
+    }
+
+    @Test
+    void picksClosestRatherThanOldestInBucket() {
+        index.add(1, 1205);
+        index.add(2, 1240);
+
+        assertEquals(2, index.claim(1245));
+    }
+
+    @Test
+    void widensWindowWhileWaiting() {
+        index.add(1, 1200);
+
+        // 300 points apart, the base window is 100 and widens by 10 per second
+        assertEquals(MatchmakingIndex.NO_MATCH, index.claim(1500));
+        clock.set(19_000);
+        assertEquals(MatchmakingIndex.NO_MATCH, index.claim(1500));
+        clock.set(20_000);
+        assertEquals(1, index.claim(1500));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void forgetsRemovedAndClaimedRooms() {
+        index.add(1, 1500);
+        index.add(2, 1500);
+
+        assertTrue(index.remove(1));
+        assertFalse(index.remove(1));
+        assertEquals(2, index.claim(1500));
+        assertEquals(MatchmakingIndex.NO_MATCH, index.claim(1500));
+    }
+
+    @Test
+    void pairsCloseRatingsWithFiftyThousandWaiting() {
+        int waitingPlayers = 50_000;
+        int joiners = 50_000;
+        long waitSpreadMs = 60_000;
+        Random random = new Random(42);
+        // Rating and wait start of every waiting room, mirroring the index
+        Map<Long, double[]> waiting = new HashMap<>();
+
+        long[] arrivals = new long[waitingPlayers];
+        for (int i = 0; i < waitingPlayers; i++) {
+            arrivals[i] = (long) (random.nextDouble() * waitSpreadMs);
+        }
+        Arrays.sort(arrivals);
+        long nextRoom = 1;
+        for (long arrival : arrivals) {
+            clock.set(arrival);
+            nextRoom = addRoom(waiting, nextRoom, nextRating(random));
+        }
+        clock.set(waitSpreadMs);
+
+        double gapSum = 0;
+        double unratedGapSum = 0;
+        int matches = 0;
+        for (int i = 0; i < joiners; i++) {
+            double rating = nextRating(random);
+            // Previous behaviour: join any room with one player, whatever its rating
+            unratedGapSum += Math.abs(nextRating(random) - rating);
+            long room = index.claim(rating);
+            if (room == MatchmakingIndex.NO_MATCH) {
+                nextRoom = addRoom(waiting, nextRoom, rating);
+            } else {
+                double[] claimed = waiting.remove(room);
+                double gap = Math.abs(claimed[0] - rating);
+                double window = MatchmakingIndex.DEFAULT_BASE_WINDOW
+                        + MatchmakingIndex.DEFAULT_WIDEN_PER_SECOND * (clock.get() - claimed[1]) / 1000.0;
+                assertTrue(gap <= window, "Paired outside the room's window: gap " + gap + ", window " + window);
+                gapSum += gap;
+                matches++;
+            }
+            clock.addAndGet(1);
+        }
+
+        assertEquals(waiting.size(), index.size());
+        double meanGap = gapSum / matches;
+        double meanUnratedGap = unratedGapSum / joiners;
+        assertTrue(matches > joiners / 2, "Too few matches: " + matches);
+        assertTrue(meanGap < 50, "Mean rating gap too wide: " + meanGap);
+        assertTrue(meanGap < meanUnratedGap / 5,
+                "Mean rating gap " + meanGap + " not well below unrated pairing " + meanUnratedGap);
+    }
+
+    private long addRoom(Map<Long, double[]> waiting, long roomKey, double rating) {
+        index.add(roomKey, rating);
+        waiting.put(roomKey, new double[]{rating, clock.get()});
+        return roomKey + 1;
+    }
+
+    private static double nextRating(Random random) {
+        return MEAN_RATING + random.nextGaussian() * RATING_DEVIATION;
+    }
+}
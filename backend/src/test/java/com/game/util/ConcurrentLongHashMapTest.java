@@ -0,0 +1,138 @@
+package com.game.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentLongHashMapTest {
+
+    @Test
+    void matchesHashMapUnderRandomOperations() {
+        // Start tiny so the segments resize many times, and draw keys from a small range so
+        // probe chains collide and removals have entries to shift back
+        ConcurrentLongHashMap<Long> map = new ConcurrentLongHashMap<>(2, 2);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(31);
+        for (int i = 0; i < 200_000; i++) {
+            long key = 1 + random.nextInt(4096);
+            long value = random.nextLong();
+            switch (random.nextInt(5)) {
+                case 0:
+                case 1:
+                    assertEquals(expected.put(key, value), map.put(key, value));
+                    break;
+                case 2:
+                    assertEquals(expected.putIfAbsent(key, value), map.putIfAbsent(key, value));
+                    break;
+                case 3:
+                    assertEquals(expected.remove(key), map.remove(key));
+                    break;
+                default:
+                    Long current = expected.get(key);
+                    if (current != null && random.nextBoolean()) {
+                        assertTrue(map.remove(key, current));
+                        expected.remove(key);
+                    } else {
+                        assertFalse(map.remove(key, value));
+                    }
+                    break;
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (long key = 1; key <= 4096; key++) {
+            assertEquals(expected.get(key), map.get(key));
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+        }
+        Map<Long, Long> visited = new HashMap<>();
+        map.forEach((key, value) -> assertNull(visited.put(key, value)));
+        assertEquals(expected, visited);
+    }
+
+    @Test
+    void growsAndShrinksWithSpreadKeys() {
+        ConcurrentLongHashMap<String> map = new ConcurrentLongHashMap<>();
+        Random random = new Random(7);
+        List<Long> keys = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextLong();
+            if (key != 0 && map.putIfAbsent(key, Long.toString(key)) == null) {
+                keys.add(key);
+            }
+        }
+        assertEquals(keys.size(), map.size());
+        for (long key : keys) {
+            assertEquals(Long.toString(key), map.remove(key));
+        }
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    void reservesKeyZero() {
+        ConcurrentLongHashMap<String> map = new ConcurrentLongHashMap<>();
+        assertThrows(IllegalArgumentException.class, () -> map.put(0L, "room"));
+        assertThrows(IllegalArgumentException.class, () -> map.putIfAbsent(0L, "room"));
+        assertNull(map.get(0L));
+        assertNull(map.remove(0L));
+        assertFalse(map.remove(0L, "room"));
+    }
+
+    @Test
+    void keepsDisjointKeysConsistentAcrossThreads() throws Exception {
+        int threads = 8;
+        int keysPerThread = 50_000;
+        // Few segments, so threads share segments and reads race with resizes and shifts
+        ConcurrentLongHashMap<Long> map = new ConcurrentLongHashMap<>(16, 2);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < keysPerThread; i++) {
+                        long key = key(thread, i, threads);
+                        assertNull(map.put(key, key));
+                        assertEquals(key, map.get(key));
+                    }
+                    // Drop every other key, the rest must survive the other threads' removals
+                    for (int i = 0; i < keysPerThread; i += 2) {
+                        long key = key(thread, i, threads);
+                        assertEquals(key, map.remove(key));
+                    }
+                    for (int i = 0; i < keysPerThread; i++) {
+                        long key = key(thread, i, threads);
+                        assertEquals(i % 2 == 0 ? null : (Long) key, map.get(key));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(threads * keysPerThread / 2, map.size());
+    }
+
+    private static long key(int thread, int index, int threads) {
+        return 1 + (long) index * threads + thread;
+    }
+}
@@ -98,6 +98,28 @@ class WebSocketService {
     this.roomId = roomId;
   }
 
+  spectate(roomId, callback) {
+    if (!this.client || !this.connected) return;
+    // The first snapshot carries the room ID to follow, roomId may be a room alias
+    const subscription = this.client.subscribe('/user/queue/spectate', (message) => {
+      const data = JSON.parse(message.body);
+      console.log('[/user/queue/spectate] - Received message:', data);
+      subscription.unsubscribe();
+      callback(data);
+      if (data.type !== 'room_state') return;
+      // Spectators get coalesced room snapshots, separate from the players' room topic
+      this.client.subscribe(`/topic/spectate/${data.roomId}`, (update) => {
+        const updateData = JSON.parse(update.body);
+        console.log(`[/topic/spectate/${data.roomId}] - Received message:`, updateData);
+        callback(updateData);
+      });
+    });
+    this.client.publish({
+      destination: '/app/spectateRoom',
+      body: JSON.stringify({ roomId }),
+    });
+  }
+
   sendGameState(roomId, gameState) {
     if (!this.client || !this.connected) return;
     this.client.publish({